@@ -0,0 +1,226 @@
+package com.example.mycamera2;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only view of the compiled allergen lexicon (see {@code app/src/main/lexicon/allergens.tsv}
+ * and {@code buildSrc/.../LexiconCompiler}). The asset is extracted to internal storage once per
+ * install and memory-mapped, so the only heap cost is the buffer object no matter how large the
+ * dictionary is; lookups walk the mapped trie directly.
+ */
+public final class AllergenLexicon {
+
+    public interface MatchListener {
+        /** A term for {@code allergenId} spans {@code text[start, end)}. */
+        void onMatch(int start, int end, int allergenId);
+    }
+
+    static final String ASSET_NAME = "allergens.lex";
+    // Must match LexiconCompiler; AllergenLexiconTest reads a freshly compiled file back
+    static final int MAGIC = 0x414C4558; // "ALEX"
+    static final int VERSION = 1;
+    private static final int TERM_ENTRY_SIZE = 12;
+    private static final int CHILD_ENTRY_SIZE = 5;
+
+    private final ByteBuffer buffer;
+    private final int allergenCount;
+    private final int allergenTableOffset;
+    private final int termTableOffset;
+    private final int rootOffset;
+
+    AllergenLexicon(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < 28 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an allergen lexicon (version " + VERSION + ")");
+        }
+        allergenCount = buffer.getInt(8);
+        allergenTableOffset = buffer.getInt(12);
+        termTableOffset = buffer.getInt(20);
+        rootOffset = buffer.getInt(24);
+    }
+
+    /**
+     * Extracts the asset on first use after an install or update and maps it. Does disk I/O,
+     * so call it off the main thread.
+     */
+    public static AllergenLexicon open(Context context) throws IOException {
+        File file = new File(context.getFilesDir(), "allergens-" + installStamp(context) + ".lex");
+        if (!file.isFile()) {
+            extractAsset(context, file);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            return new AllergenLexicon(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static long installStamp(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            return info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return 0;
+        }
+    }
+
+    private static void extractAsset(Context context, File target) throws IOException {
+        File dir = target.getParentFile();
+        File[] stale = dir != null ? dir.listFiles((d, name) -> name.startsWith("allergens-") && name.endsWith(".lex")) : null;
+        if (stale != null) {
+            for (File old : stale) {
+                //noinspection ResultOfMethodCallIgnored
+                old.delete();
+            }
+        }
+        File tmp = new File(target.getPath() + ".tmp");
+        try (InputStream in = context.getAssets().open(ASSET_NAME);
+             OutputStream out = new FileOutputStream(tmp)) {
+            byte[] chunk = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+        }
+        if (!tmp.renameTo(target)) {
+            throw new IOException("Could not move lexicon into place at " + target);
+        }
+    }
+
+    public int getAllergenCount() {
+        return allergenCount;
+    }
+
+    public String getAllergenName(int allergenId) {
+        int entry = allergenTableOffset + allergenId * 8;
+        return readString(buffer.getInt(entry), buffer.getInt(entry + 4));
+    }
+
+    /** Allergen id of an exact (case-insensitive) term, or -1 if the term is not in the lexicon. */
+    public int lookup(String term) {
+        String text = term.trim();
+        int node = rootOffset;
+        for (int i = 0; i < text.length() && node >= 0; ) {
+            int codePoint = text.codePointAt(i);
+            node = walkCodePoint(node, Character.toLowerCase(codePoint));
+            i += Character.charCount(codePoint);
+        }
+        return node >= 0 ? allergenOfNode(node) : -1;
+    }
+
+    /**
+     * Reports the longest lexicon term starting at each word in {@code text}. Latin terms must
+     * match whole words; CJK terms match anywhere. Case is folded one code point at a time, the
+     * same way the compiler folds terms, so reported offsets index into {@code text} itself
+     * whatever the device locale. Does not allocate.
+     */
+    public void findMatches(String text, MatchListener listener) {
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            int first = text.codePointAt(start);
+            int firstCount = Character.charCount(first);
+            if (!isWordChar(first) || (start > 0 && isLatinWordChar(text.codePointBefore(start)) && isLatinWordChar(first))) {
+                start += firstCount;
+                continue;
+            }
+            int node = rootOffset;
+            int matchEnd = -1;
+            int matchAllergen = -1;
+            int i = start;
+            while (i < length) {
+                int codePoint = text.codePointAt(i);
+                node = walkCodePoint(node, Character.toLowerCase(codePoint));
+                if (node < 0) break;
+                i += Character.charCount(codePoint);
+                int allergen = allergenOfNode(node);
+                if (allergen >= 0 && (i == length || !isLatinWordChar(codePoint) || !isLatinWordChar(text.codePointAt(i)))) {
+                    matchEnd = i;
+                    matchAllergen = allergen;
+                }
+            }
+            if (matchEnd > 0) {
+                listener.onMatch(start, matchEnd, matchAllergen);
+                start = matchEnd;
+            } else {
+                start += firstCount;
+            }
+        }
+    }
+
+    // Follows the UTF-8 bytes of one code point; returns the node offset or -1
+    private int walkCodePoint(int node, int codePoint) {
+        if (codePoint < 0x80) {
+            return child(node, codePoint);
+        } else if (codePoint < 0x800) {
+            node = child(node, 0xC0 | (codePoint >> 6));
+            return node < 0 ? -1 : child(node, 0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            node = child(node, 0xE0 | (codePoint >> 12));
+            if (node < 0) return -1;
+            node = child(node, 0x80 | ((codePoint >> 6) & 0x3F));
+            return node < 0 ? -1 : child(node, 0x80 | (codePoint & 0x3F));
+        }
+        node = child(node, 0xF0 | (codePoint >> 18));
+        if (node < 0) return -1;
+        node = child(node, 0x80 | ((codePoint >> 12) & 0x3F));
+        if (node < 0) return -1;
+        node = child(node, 0x80 | ((codePoint >> 6) & 0x3F));
+        return node < 0 ? -1 : child(node, 0x80 | (codePoint & 0x3F));
+    }
+
+    // Binary search over the node's label-sorted child entries
+    private int child(int node, int label) {
+        int count = buffer.getShort(node) & 0xFFFF;
+        int entries = node + 6;
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = entries + mid * CHILD_ENTRY_SIZE;
+            int midLabel = buffer.get(entry) & 0xFF;
+            if (midLabel < label) {
+                low = mid + 1;
+            } else if (midLabel > label) {
+                high = mid - 1;
+            } else {
+                return buffer.getInt(entry + 1);
+            }
+        }
+        return -1;
+    }
+
+    private int allergenOfNode(int node) {
+        int termIndex = buffer.getInt(node + 2);
+        return termIndex < 0 ? -1 : buffer.getInt(termTableOffset + termIndex * TERM_ENTRY_SIZE + 8);
+    }
+
+    private String readString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isWordChar(int codePoint) {
+        return Character.isLetterOrDigit(codePoint);
+    }
+
+    private static boolean isLatinWordChar(int codePoint) {
+        return Character.isLetterOrDigit(codePoint) && Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.LATIN
+                || (codePoint >= '0' && codePoint <= '9');
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.mycamera2;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Draws boxes around allergen words on top of the camera preview.
+ *
+ * Boxes are given in analysis-image coordinates (already rotated upright) and mapped to view
+ * coordinates the same way PreviewView's default FILL_CENTER scale type maps the preview.
+ * All storage is allocated up front so a frame update and onDraw never allocate. Boxes are
+ * replaced once per OCR'd analysis frame, so they refresh at OCR rate rather than preview
+ * frame rate and trail the preview slightly while the camera moves.
+ */
+public class AllergenOverlayView extends View {
+
+    private static final int MAX_BOXES = 64;
+
+    private final float[] boxes = new float[MAX_BOXES * 4];
+    private int boxCount;
+
+    private final Matrix imageToView = new Matrix();
+    private final RectF drawRect = new RectF();
+    private final Paint boxPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float cornerRadius;
+
+    private int imageWidth;
+    private int imageHeight;
+
+    public AllergenOverlayView(Context context) {
+        this(context, null);
+    }
+
+    public AllergenOverlayView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        boxPaint.setStyle(Paint.Style.STROKE);
+        boxPaint.setStrokeWidth(3 * density);
+        boxPaint.setColor(Color.RED);
+        cornerRadius = 4 * density;
+    }
+
+    /** Starts a new frame; {@code width}/{@code height} are the upright analysis image size. */
+    public void beginFrame(int width, int height) {
+        boxCount = 0;
+        if (width != imageWidth || height != imageHeight) {
+            imageWidth = width;
+            imageHeight = height;
+            updateMatrix();
+        }
+    }
+
+    public void addBox(Rect box) {
+        if (box == null || boxCount == MAX_BOXES) {
+            return;
+        }
+        int i = boxCount * 4;
+        boxes[i] = box.left;
+        boxes[i + 1] = box.top;
+        boxes[i + 2] = box.right;
+        boxes[i + 3] = box.bottom;
+        boxCount++;
+    }
+
+    public void endFrame() {
+        postInvalidateOnAnimation();
+    }
+
+    public void clear() {
+        if (boxCount != 0) {
+            boxCount = 0;
+            postInvalidateOnAnimation();
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateMatrix();
+    }
+
+    private void updateMatrix() {
+        imageToView.reset();
+        if (imageWidth == 0 || imageHeight == 0 || getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
+        float scale = Math.max((float) getWidth() / imageWidth, (float) getHeight() / imageHeight);
+        imageToView.setScale(scale, scale);
+        imageToView.postTranslate((getWidth() - imageWidth * scale) / 2f,
+                (getHeight() - imageHeight * scale) / 2f);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        for (int i = 0; i < boxCount; i++) {
+            int j = i * 4;
+            drawRect.set(boxes[j], boxes[j + 1], boxes[j + 2], boxes[j + 3]);
+            imageToView.mapRect(drawRect);
+            canvas.drawRoundRect(drawRect, cornerRadius, cornerRadius, boxPaint);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.mycamera2;
+
+import android.content.Context;
+import android.os.BatteryManager;
+import android.os.PowerManager;
+
+/** {@link ScanScheduler.PowerSource} backed by PowerManager and BatteryManager. */
+public class AndroidPowerSource implements ScanScheduler.PowerSource {
+
+    private final PowerManager powerManager;
+    private final BatteryManager batteryManager;
+
+    public AndroidPowerSource(Context context) {
+        powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        batteryManager = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+    }
+
+    @Override
+    public int getThermalStatus() {
+        return powerManager != null ? powerManager.getCurrentThermalStatus() : PowerManager.THERMAL_STATUS_NONE;
+    }
+
+    @Override
+    public int getBatteryPercent() {
+        if (batteryManager == null) {
+            return 100;
+        }
+        int capacity = batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+        return capacity > 0 ? capacity : 100; // Some emulators report 0 or Integer.MIN_VALUE
+    }
+
+    @Override
+    public boolean isCharging() {
+        return batteryManager != null && batteryManager.isCharging();
+    }
+
+    public void addThermalStatusListener(PowerManager.OnThermalStatusChangedListener listener) {
+        if (powerManager != null) {
+            powerManager.addThermalStatusListener(listener);
+        }
+    }
+
+    public void removeThermalStatusListener(PowerManager.OnThermalStatusChangedListener listener) {
+        if (powerManager != null) {
+            powerManager.removeThermalStatusListener(listener);
+        }
+    }
+}
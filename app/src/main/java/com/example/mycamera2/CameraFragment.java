@@ -3,10 +3,16 @@ package com.example.mycamera2;
 import android.Manifest;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
 import android.text.Spannable;
 import android.text.SpannableStringBuilder;
 import android.text.style.ForegroundColorSpan;
@@ -21,11 +27,16 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
 import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ExperimentalGetImage;
+import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageCapture;
 import androidx.camera.core.ImageCaptureException;
 import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
@@ -34,20 +45,35 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.LifecycleOwner;
 
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.mlkit.nl.translate.Translator;
 import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
 import com.google.mlkit.vision.text.TextRecognition;
 import com.google.mlkit.vision.text.TextRecognizer;
+import com.google.mlkit.vision.text.chinese.ChineseTextRecognizerOptions;
+import com.google.mlkit.vision.text.japanese.JapaneseTextRecognizerOptions;
+import com.google.mlkit.vision.text.korean.KoreanTextRecognizerOptions;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
-import java.lang.Character; // Added for UnicodeBlock
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CameraFragment extends Fragment {
 
@@ -55,13 +81,86 @@ public class CameraFragment extends Fragment {
     private PreviewView previewView;
     private TextView ocrTextView;
     private ImageCapture imageCapture;
+    private AllergenOverlayView allergenOverlay;
     private ImageButton captureButton;
+    private CaptureProfile captureProfile = CaptureProfile.DEFAULT;
+
+    // Pending "time to first preview frame" measurement, cleared once reported
+    private String firstFrameMetric;
+    private long firstFrameStartMs;
+
+    // Scan currently on screen; late translations for older scans are dropped
+    private ScanResult currentScan;
+    private long scanStartMs;
+
+    // Backs off frame rate, OCR resolution, recognizers and translation when hot or low on battery
+    private ScanScheduler scanScheduler;
+    private AndroidPowerSource powerSource;
+    private ScanResult deferredTranslationScan;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final PowerManager.OnThermalStatusChangedListener thermalListener =
+            status -> scanScheduler.evaluate(LatencyLog.now());
 
     private static final String PREFS_NAME = "AllergyPrefs";
     private static final String KEY_ALLERGIES = "allergies";
     private List<String> defaultAllergies;
-    private Map<String, Translator> translators; // Added
+    private TranslatorPool translatorPool;
+
+    // Probe frames are downsampled to this long side before routing
+    private static final int PROBE_MAX_DIMENSION = 1280;
+    private final ScriptRouter scriptRouter = new ScriptRouter();
+    // Created on first use and kept warm for the lifetime of the fragment
+    private final Map<ScriptRouter.Script, TextRecognizer> recognizers = new EnumMap<>(ScriptRouter.Script.class);
+    // Set in onDestroy; in-flight OCR callbacks stop there instead of creating new recognizers
+    private volatile boolean destroyed;
+
+    // Tiled OCR for dense labels, enabled in settings
+    private static final int TILE_SIZE = 1280;
+    private static final int TILE_OVERLAP = 160;
+    private static final int TILE_PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    // TILE_PARALLELISM clients per script, since one client processes its images one at a time
+    private final Map<ScriptRouter.Script, List<TextRecognizer>> tileRecognizers = new EnumMap<>(ScriptRouter.Script.class);
+    private ExecutorService tileExecutor;
+    private boolean tilingBaselineReported;
+
+    // Live analysis feeding the allergen overlay; one frame is OCR'd at a time
+    private ExecutorService analysisExecutor;
+    private final AtomicBoolean liveOcrInFlight = new AtomicBoolean(false);
+    private volatile boolean liveOcrEnabled = true;
+    private List<String> liveKeywords = new ArrayList<>();
+    // Lexicon allergens the keywords refer to, rebuilt when the keywords or the lexicon change
+    private boolean[] liveWatchedAllergens;
+    private AllergenLexicon liveWatchedLexicon;
+    private Text.Line overlayLine;
+    // Elements of overlayLine already boxed, so a word matched by both passes is boxed once
+    private boolean[] overlayBoxed = new boolean[0];
+    private final AllergenLexicon.MatchListener overlayMatchListener = this::boxLexiconMatch;
+
+    // Burst consensus: OCR several fast live frames and vote per token
+    private static final int BURST_FRAMES = 5;
+    private static final float LOW_CONFIDENCE = 0.6f;
+    private final OcrConsensus burstConsensus = new OcrConsensus();
+    private volatile boolean burstActive;
+    private volatile ScriptRouter.Script liveScript = ScriptRouter.Script.LATIN;
+    private int burstFramesRemaining;
+    private long burstStartMs;
+
+    // Debuggable builds record per-frame OCR of bursts and captures for replay in OcrConsensusTest
+    private boolean recordOcr;
+    private OcrRecording burstRecording;
+    private long recognitionStartMs;
+
+    // Snapshot of the last result and warm models, restored when the fragment is recreated
+    private static final String KEY_SNAPSHOT = "pipeline_snapshot";
+    private PipelineSnapshot restoredSnapshot;
+    private String lastResultText;
+    // Whether a CameraFragment was already created in this process (rotation vs. process start)
+    private static boolean processWarm;
+    private String startType;
+    private long startTypeStartMs;
 
+    // Synonym lexicon, mapped in the background; null until loaded or if loading failed
+    private volatile AllergenLexicon allergenLexicon;
 
     public CameraFragment() {
         // Required empty public constructor
@@ -71,6 +170,45 @@ public class CameraFragment extends Fragment {
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         defaultAllergies = new ArrayList<>(Arrays.asList("almond", "pistachio", "peanut", "fish", "pecan"));
+        analysisExecutor = Executors.newSingleThreadExecutor();
+        tileExecutor = Executors.newFixedThreadPool(TILE_PARALLELISM);
+        recordOcr = (requireContext().getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+
+        if (savedInstanceState != null) {
+            // Recreated after rotation or process death; a fresh launch starts empty rather than
+            // showing an old product's result
+            restoredSnapshot = PipelineSnapshot.decode(savedInstanceState.getString(KEY_SNAPSHOT));
+        }
+        if (processWarm) {
+            startType = "warm";
+            startTypeStartMs = LatencyLog.now();
+        } else {
+            startType = restoredSnapshot != null ? "restored" : "cold";
+            // Measure cold and restored starts from process start
+            startTypeStartMs = LatencyLog.now() - (SystemClock.uptimeMillis() - Process.getStartUptimeMillis());
+        }
+        processWarm = true;
+        if (restoredSnapshot != null) {
+            scriptRouter.setPreferredCjkScript(restoredSnapshot.preferredCjkScript);
+        }
+        powerSource = new AndroidPowerSource(requireContext());
+        scanScheduler = new ScanScheduler(powerSource);
+        // Level changes can come from the analysis thread; the fragment may be detached by the time they land
+        scanScheduler.setListener((from, to, reason) -> mainHandler.post(() -> {
+            if (isAdded()) {
+                onScanLevelChanged(from, to, reason);
+            }
+        }));
+        powerSource.addThermalStatusListener(thermalListener);
+
+        Context appContext = requireContext().getApplicationContext();
+        analysisExecutor.execute(() -> {
+            try {
+                allergenLexicon = AllergenLexicon.open(appContext);
+            } catch (IOException e) {
+                Log.e("CameraFragment", "Could not load allergen lexicon, using keywords only", e);
+            }
+        });
     }
 
     @Override
@@ -85,16 +223,34 @@ public class CameraFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
 
         previewView = view.findViewById(R.id.previewView);
+        allergenOverlay = view.findViewById(R.id.allergenOverlay);
         ocrTextView = view.findViewById(R.id.ocrTextView);
         captureButton = view.findViewById(R.id.captureButton);
 
         if (previewView != null) {
             previewView.setClickable(false);
             previewView.setFocusable(false);
+            firstFrameMetric = "camera_create_to_first_frame";
+            firstFrameStartMs = LatencyLog.now();
+            previewView.getPreviewStreamState().observe(getViewLifecycleOwner(), state -> {
+                if (state == PreviewView.StreamState.STREAMING) {
+                    reportFirstFrame();
+                }
+            });
         } else {
             Log.e("CameraFragment", "PreviewView is null in onViewCreated");
         }
 
+        if (restoredSnapshot != null) {
+            if (restoredSnapshot.resultText != null && currentScan == null) {
+                lastResultText = restoredSnapshot.resultText;
+                highlightKeywords(lastResultText);
+            }
+            // Load the models that were warm last time once the first layout is done
+            Set<ScriptRouter.Script> warm = restoredSnapshot.warmRecognizers;
+            view.post(() -> rewarmRecognizers(warm));
+        }
+
         if (captureButton != null) {
             captureButton.setOnClickListener(v -> {
                 v.playSoundEffect(SoundEffectConstants.CLICK);
@@ -112,16 +268,21 @@ public class CameraFragment extends Fragment {
                         .start();
                 capturePhotoAndRunOCR();
             });
+            // Long press: fuse a burst of fast live frames instead of one full-resolution capture
+            captureButton.setOnLongClickListener(v -> {
+                startBurstScan();
+                return true;
+            });
         } else {
             Log.e("CameraFragment", "CaptureButton is null in onViewCreated");
         }
 
         requestCameraPermission();
 
-        // Get the translators from MainActivity
+        // Get the translator pool from MainActivity
         if (getActivity() instanceof MainActivity) {
-            translators = ((MainActivity) getActivity()).getTranslators();
-            if (translators == null || translators.isEmpty()) {
+            translatorPool = ((MainActivity) getActivity()).getTranslatorPool();
+            if (translatorPool == null || translatorPool.isEmpty()) {
                 Log.e("CameraFragment", "Translators are null or empty. Check MainActivity initialization.");
                 if (getContext() != null) {
                     Toast.makeText(getContext(), "Translator service not available.", Toast.LENGTH_LONG).show();
@@ -135,6 +296,51 @@ public class CameraFragment extends Fragment {
         }
     }
 
+    /**
+     * Called by MainActivity right before this (already created) fragment is shown again.
+     * The recreate-on-every-switch baseline is the "camera_create_to_first_frame" metric.
+     */
+    void markTabSwitch() {
+        firstFrameMetric = "tab_switch_to_first_frame";
+        firstFrameStartMs = LatencyLog.now();
+    }
+
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        liveOcrEnabled = !hidden;
+        if (hidden) {
+            if (allergenOverlay != null) {
+                allergenOverlay.clear();
+            }
+            return;
+        }
+        refreshLiveKeywords(); // Allergies may have been edited in settings
+        if (previewView == null) {
+            return;
+        }
+        if (imageCapture != null && loadCaptureProfile() != captureProfile) {
+            // Profile was changed in settings while we were hidden; rebinding reports the first frame
+            startCamera();
+        } else if (previewView.getPreviewStreamState().getValue() == PreviewView.StreamState.STREAMING) {
+            // Still bound and streaming, so the next drawn frame is the first one the user sees
+            previewView.post(this::reportFirstFrame);
+        }
+    }
+
+    private void reportFirstFrame() {
+        if (startType != null) {
+            LatencyLog.report("time_to_useful_screen", startTypeStartMs,
+                    "start=" + startType + " restoredResult=" + (lastResultText != null));
+            startType = null;
+        }
+        if (firstFrameMetric == null) {
+            return;
+        }
+        LatencyLog.report(firstFrameMetric, firstFrameStartMs, "profile=" + captureProfile);
+        firstFrameMetric = null;
+    }
+
     private void requestCameraPermission() {
         if (ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.CAMERA)
                 != PackageManager.PERMISSION_GRANTED) {
@@ -184,12 +390,22 @@ public class CameraFragment extends Fragment {
                     return;
                 }
 
-                imageCapture = new ImageCapture.Builder().build();
+                captureProfile = loadCaptureProfile();
+                imageCapture = captureProfile.buildImageCapture();
                 CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
 
+                // Same 4:3 aspect as preview so overlay boxes line up with what the user sees
+                ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
+                        .setResolutionSelector(new ResolutionSelector.Builder()
+                                .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                                .build())
+                        .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                        .build();
+                imageAnalysis.setAnalyzer(analysisExecutor, this::analyzeLiveFrame);
+
                 cameraProvider.unbindAll();
-                cameraProvider.bindToLifecycle(viewLifecycleOwner, cameraSelector, preview, imageCapture);
-                Log.d("CameraFragment", "Camera bound to lifecycle successfully.");
+                cameraProvider.bindToLifecycle(viewLifecycleOwner, cameraSelector, preview, imageCapture, imageAnalysis);
+                Log.d("CameraFragment", "Camera bound to lifecycle successfully with profile " + captureProfile);
 
             } catch (IllegalStateException e) {
                 Log.e("CameraFragment", "startCamera listener: IllegalStateException: " + e.getMessage(), e);
@@ -218,11 +434,16 @@ public class CameraFragment extends Fragment {
             return;
         }
 
+        final CaptureProfile profile = captureProfile;
+        final long shutterStart = LatencyLog.now();
+        scanStartMs = shutterStart;
         imageCapture.takePicture(
                 ContextCompat.getMainExecutor(requireContext()),
                 new ImageCapture.OnImageCapturedCallback() {
                     @Override
                     public void onCaptureSuccess(@NonNull ImageProxy imageProxy) {
+                        LatencyLog.report("shutter_to_callback", shutterStart,
+                                "profile=" + profile + " size=" + imageProxy.getWidth() + "x" + imageProxy.getHeight());
                         Bitmap bitmap = ImageUtils.imageProxyToBitmap(imageProxy);
                         imageProxy.close();
                         if (bitmap != null) {
@@ -246,6 +467,166 @@ public class CameraFragment extends Fragment {
         );
     }
 
+    private CaptureProfile loadCaptureProfile() {
+        if (getContext() == null) return CaptureProfile.DEFAULT;
+        SharedPreferences sharedPreferences = requireContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return CaptureProfile.fromPreferences(sharedPreferences);
+    }
+
+    @OptIn(markerClass = ExperimentalGetImage.class)
+    private void analyzeLiveFrame(@NonNull ImageProxy imageProxy) {
+        if (!liveOcrEnabled || imageProxy.getImage() == null || liveOcrInFlight.get()
+                || (!burstActive && !scanScheduler.shouldAnalyzeFrame(LatencyLog.now()))) {
+            imageProxy.close();
+            return;
+        }
+        liveOcrInFlight.set(true);
+        int rotation = imageProxy.getImageInfo().getRotationDegrees();
+        boolean rotated = rotation == 90 || rotation == 270;
+        int uprightWidth = rotated ? imageProxy.getHeight() : imageProxy.getWidth();
+        int uprightHeight = rotated ? imageProxy.getWidth() : imageProxy.getHeight();
+        InputImage image = InputImage.fromMediaImage(imageProxy.getImage(), rotation);
+        TextRecognizer recognizer = getRecognizer(liveScript);
+        if (recognizer == null) {
+            imageProxy.close();
+            liveOcrInFlight.set(false);
+            return;
+        }
+
+        // Allergen keywords are English, so the fast Latin model is enough for the live boxes;
+        // a burst uses the script of the last scan instead
+        long ocrStart = LatencyLog.now();
+        recognizer.process(image)
+                .addOnSuccessListener(visionText -> {
+                    if (destroyed) {
+                        return;
+                    }
+                    updateAllergenOverlay(visionText, uprightWidth, uprightHeight);
+                    if (burstActive) {
+                        onBurstFrame(visionText, LatencyLog.now() - ocrStart);
+                    }
+                })
+                .addOnFailureListener(e -> Log.w("CameraFragment", "Live text recognition failed", e))
+                .addOnCompleteListener(task -> {
+                    imageProxy.close();
+                    liveOcrInFlight.set(false);
+                });
+    }
+
+    // Runs for every OCR'd live frame, so it sticks to indexed loops and regionMatches to avoid allocating
+    private void updateAllergenOverlay(Text visionText, int imageWidth, int imageHeight) {
+        if (allergenOverlay == null || !liveOcrEnabled) {
+            return;
+        }
+        List<String> keywords = liveKeywords;
+        AllergenLexicon lexicon = allergenLexicon;
+        if (lexicon != null && lexicon != liveWatchedLexicon) {
+            liveWatchedLexicon = lexicon;
+            liveWatchedAllergens = watchedAllergens(lexicon, keywords);
+        }
+        boolean[] watched = lexicon != null ? liveWatchedAllergens : null;
+        allergenOverlay.beginFrame(imageWidth, imageHeight);
+        List<Text.TextBlock> blocks = visionText.getTextBlocks();
+        for (int b = 0; b < blocks.size(); b++) {
+            List<Text.Line> lines = blocks.get(b).getLines();
+            for (int l = 0; l < lines.size(); l++) {
+                Text.Line line = lines.get(l);
+                String lineText = line.getText();
+                List<Text.Element> elements = line.getElements();
+                if (overlayBoxed.length < elements.size()) {
+                    overlayBoxed = new boolean[elements.size()];
+                } else {
+                    Arrays.fill(overlayBoxed, 0, elements.size(), false);
+                }
+                for (int k = 0; k < keywords.size(); k++) {
+                    String keyword = keywords.get(k);
+                    if (!containsIgnoreCase(lineText, keyword)) continue;
+                    // Box the words making up the keyword; multi-word keywords span several elements
+                    boolean multiWord = keyword.indexOf(' ') >= 0;
+                    for (int e = 0; e < elements.size(); e++) {
+                        String word = elements.get(e).getText();
+                        if (containsIgnoreCase(word, keyword) || (multiWord && containsIgnoreCase(keyword, word))) {
+                            boxOverlayElement(elements, e);
+                        }
+                    }
+                }
+                // Synonyms and ingredient names too, e.g. "arachis oil" when "peanut" is listed
+                if (watched != null) {
+                    overlayLine = line;
+                    lexicon.findMatches(lineText, overlayMatchListener);
+                }
+            }
+        }
+        overlayLine = null;
+        allergenOverlay.endFrame();
+    }
+
+    // Boxes the elements of overlayLine that overlap a lexicon match at [start, end) of its text
+    private void boxLexiconMatch(int start, int end, int allergenId) {
+        if (!liveWatchedAllergens[allergenId]) {
+            return;
+        }
+        String lineText = overlayLine.getText();
+        List<Text.Element> elements = overlayLine.getElements();
+        int cursor = 0;
+        for (int e = 0; e < elements.size(); e++) {
+            String word = elements.get(e).getText();
+            int wordStart = lineText.indexOf(word, cursor);
+            if (wordStart < 0) continue;
+            cursor = wordStart + word.length();
+            if (wordStart < end && cursor > start) {
+                boxOverlayElement(elements, e);
+            }
+        }
+    }
+
+    private void boxOverlayElement(List<Text.Element> elements, int index) {
+        if (!overlayBoxed[index]) {
+            overlayBoxed[index] = true;
+            allergenOverlay.addBox(elements.get(index).getBoundingBox());
+        }
+    }
+
+    // Null when the lexicon is not loaded or none of the keywords are in it
+    @Nullable
+    private static boolean[] watchedAllergens(AllergenLexicon lexicon, List<String> keywords) {
+        boolean[] watched = new boolean[lexicon.getAllergenCount()];
+        boolean anyWatched = false;
+        for (String keyword : keywords) {
+            if (keyword == null || keyword.trim().isEmpty()) continue;
+            int allergenId = lexicon.lookup(keyword);
+            if (allergenId >= 0) {
+                watched[allergenId] = true;
+                anyWatched = true;
+            }
+        }
+        return anyWatched ? watched : null;
+    }
+
+    private static boolean containsIgnoreCase(String text, String part) {
+        return indexOfIgnoreCase(text, part, 0) >= 0;
+    }
+
+    // Case-insensitive per char, so unlike toLowerCase() it neither depends on the locale nor shifts offsets
+    private static int indexOfIgnoreCase(String text, String part, int from) {
+        for (int i = from; i <= text.length() - part.length(); i++) {
+            if (text.regionMatches(true, i, part, 0, part.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void refreshLiveKeywords() {
+        List<String> keywords = new ArrayList<>();
+        for (String keyword : loadKeywordsFromPreferences()) {
+            if (keyword == null || keyword.trim().isEmpty()) continue;
+            keywords.add(keyword.trim());
+        }
+        liveKeywords = keywords;
+        liveWatchedLexicon = null; // Rebuilt against the new keywords on the next frame
+    }
+
     private List<String> loadKeywordsFromPreferences() {
         if (getContext() == null) return defaultAllergies; 
         SharedPreferences sharedPreferences = requireContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
@@ -256,7 +637,72 @@ public class CameraFragment extends Fragment {
         return new ArrayList<>(savedAllergies);
     }
 
+    private void startBurstScan() {
+        if (burstActive) {
+            return;
+        }
+        burstConsensus.reset();
+        burstFramesRemaining = BURST_FRAMES;
+        burstStartMs = LatencyLog.now();
+        burstRecording = recordOcr ? new OcrRecording(OcrRecording.BURST) : null;
+        ScriptRouter.Script lastScript = ScriptRouter.scriptOf(lastResultText);
+        liveScript = lastScript != null ? lastScript : ScriptRouter.Script.LATIN;
+        burstActive = true;
+        if (getContext() != null) {
+            Toast.makeText(getContext(), getString(R.string.burst_scan_started), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private void onBurstFrame(Text visionText, long recognizerMs) {
+        List<String> lines = new ArrayList<>();
+        for (Text.TextBlock block : visionText.getTextBlocks()) {
+            for (Text.Line line : block.getLines()) {
+                lines.add(line.getText());
+            }
+        }
+        if (burstRecording != null) {
+            burstRecording.addFrame(recognizerMs, LatencyLog.now() - burstStartMs, lines);
+        }
+        OcrConsensus.Result fused = burstConsensus.addFrame(lines);
+        burstFramesRemaining--;
+        if (fused.frameCount == 1) {
+            LatencyLog.report("burst_first_result", burstStartMs, "script=" + liveScript);
+        }
+        if (burstFramesRemaining > 0) {
+            highlightKeywords(fused.getText(), fused); // Streamed partial result, shaky tokens dimmed
+            return;
+        }
+
+        burstActive = false;
+        int lowConfidence = 0;
+        for (OcrConsensus.Line line : fused.lines) {
+            for (OcrConsensus.Token token : line.tokens) {
+                if (token.confidence < LOW_CONFIDENCE) lowConfidence++;
+            }
+        }
+        LatencyLog.report("burst_consensus", burstStartMs, "script=" + liveScript + " frames=" + fused.frameCount
+                + " lines=" + fused.lines.size() + " lowConfidenceTokens=" + lowConfidence);
+        if (burstRecording != null) {
+            burstRecording.finish(LatencyLog.now() - burstStartMs, fused.getLineTexts());
+            saveRecording(burstRecording);
+            burstRecording = null;
+        }
+        liveScript = ScriptRouter.Script.LATIN;
+        if (fused.lines.isEmpty()) {
+            if (ocrTextView != null) {
+                ocrTextView.setText("No text detected in any supported language");
+            }
+            return;
+        }
+        scanStartMs = burstStartMs;
+        detectLanguageAndTranslate(fused.getText(), fused.getLineTexts());
+    }
+
     private void highlightKeywords(String text) {
+        highlightKeywords(text, null);
+    }
+
+    private void highlightKeywords(String text, @Nullable OcrConsensus.Result fused) {
         if (ocrTextView == null) {
             Log.e("CameraFragment", "ocrTextView is null in highlightKeywords.");
             return;
@@ -264,16 +710,44 @@ public class CameraFragment extends Fragment {
         SpannableStringBuilder spannable = new SpannableStringBuilder(text);
         List<String> keywords = loadKeywordsFromPreferences();
 
+        if (fused != null) {
+            // Grey out tokens most frames disagreed on; allergen highlights below still win
+            int cursor = 0;
+            for (OcrConsensus.Line line : fused.lines) {
+                for (OcrConsensus.Token token : line.tokens) {
+                    int index = text.indexOf(token.text, cursor);
+                    if (index < 0) continue;
+                    cursor = index + token.text.length();
+                    if (token.confidence < LOW_CONFIDENCE) {
+                        spannable.setSpan(new ForegroundColorSpan(Color.GRAY), index, cursor,
+                                Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    }
+                }
+            }
+        }
+
         for (String keyword : keywords) {
             if (keyword == null || keyword.trim().isEmpty()) continue; 
-            int index = text.toLowerCase().indexOf(keyword.toLowerCase());
+            int index = indexOfIgnoreCase(text, keyword, 0);
             while (index >= 0) {
                 spannable.setSpan(new ForegroundColorSpan(Color.RED),
                         index, index + keyword.length(),
                         Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-                index = text.toLowerCase().indexOf(keyword.toLowerCase(), index + keyword.length());
+                index = indexOfIgnoreCase(text, keyword, index + keyword.length());
             }
         }
+
+        // Also highlight synonyms and ingredient names of the listed allergens (e.g. "arachis oil" for peanut)
+        AllergenLexicon lexicon = allergenLexicon;
+        boolean[] watched = lexicon != null ? watchedAllergens(lexicon, keywords) : null;
+        if (watched != null) {
+            lexicon.findMatches(text, (start, end, allergenId) -> {
+                if (watched[allergenId]) {
+                    spannable.setSpan(new ForegroundColorSpan(Color.RED), start, end,
+                            Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+            });
+        }
         ocrTextView.setText(spannable);
     }
 
@@ -281,67 +755,168 @@ public class CameraFragment extends Fragment {
         if (ocrTextView == null) {
             Log.e("CameraFragment", "ocrTextView is null in runTextRecognition.");
         }
+        recognitionStartMs = LatencyLog.now();
+        scanScheduler.evaluate(recognitionStartMs);
+        int maxDimension = scanScheduler.getLevel().maxOcrDimension;
+        int longSide = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (maxDimension > 0 && longSide > maxDimension) {
+            float scale = (float) maxDimension / longSide;
+            bitmap = Bitmap.createScaledBitmap(bitmap, Math.round(bitmap.getWidth() * scale),
+                    Math.round(bitmap.getHeight() * scale), true);
+        }
         InputImage image = InputImage.fromBitmap(bitmap, 0);
         
         // Try multiple text recognizers for different languages
-        runMultiLanguageTextRecognition(image);
+        runMultiLanguageTextRecognition(bitmap, image);
     }
-    
-    private void runMultiLanguageTextRecognition(InputImage image) {
-        // Try different recognizers in sequence
-        // Start with Chinese, then Japanese, then general Latin
-        runChineseTextRecognition(image);
+
+    // Called from the main thread and the analysis thread; null once the fragment is destroyed
+    @Nullable
+    private synchronized TextRecognizer getRecognizer(ScriptRouter.Script script) {
+        if (destroyed) {
+            return null;
+        }
+        TextRecognizer recognizer = recognizers.get(script);
+        if (recognizer == null) {
+            recognizer = createRecognizer(script, null);
+            recognizers.put(script, recognizer);
+        }
+        return recognizer;
     }
-    
-    private void runChineseTextRecognition(InputImage image) {
-        TextRecognizer chineseRecognizer = TextRecognition.getClient(new com.google.mlkit.vision.text.chinese.ChineseTextRecognizerOptions.Builder().build());
-        
-        chineseRecognizer.process(image)
-                .addOnSuccessListener(visionText -> {
-                    String chineseText = visionText.getText();
-                    if (!chineseText.trim().isEmpty()) {
-                        detectLanguageAndTranslate(chineseText);
+
+    // Separate clients running on the tile pool so tiles are processed side by side
+    @Nullable
+    private synchronized List<TextRecognizer> getTileRecognizers(ScriptRouter.Script script) {
+        if (destroyed) {
+            return null;
+        }
+        List<TextRecognizer> clients = tileRecognizers.get(script);
+        if (clients == null) {
+            clients = new ArrayList<>(TILE_PARALLELISM);
+            for (int i = 0; i < TILE_PARALLELISM; i++) {
+                clients.add(createRecognizer(script, tileExecutor));
+            }
+            tileRecognizers.put(script, clients);
+        }
+        return clients;
+    }
+
+    private static TextRecognizer createRecognizer(ScriptRouter.Script script, @Nullable Executor executor) {
+        switch (script) {
+            case CHINESE: {
+                ChineseTextRecognizerOptions.Builder builder = new ChineseTextRecognizerOptions.Builder();
+                if (executor != null) builder.setExecutor(executor);
+                return TextRecognition.getClient(builder.build());
+            }
+            case JAPANESE: {
+                JapaneseTextRecognizerOptions.Builder builder = new JapaneseTextRecognizerOptions.Builder();
+                if (executor != null) builder.setExecutor(executor);
+                return TextRecognition.getClient(builder.build());
+            }
+            case KOREAN: {
+                KoreanTextRecognizerOptions.Builder builder = new KoreanTextRecognizerOptions.Builder();
+                if (executor != null) builder.setExecutor(executor);
+                return TextRecognition.getClient(builder.build());
+            }
+            case LATIN:
+            default: {
+                TextRecognizerOptions.Builder builder = new TextRecognizerOptions.Builder();
+                if (executor != null) builder.setExecutor(executor);
+                return TextRecognition.getClient(builder.build());
+            }
+        }
+    }
+
+    private void runMultiLanguageTextRecognition(Bitmap bitmap, InputImage image) {
+        // Probe with the fast Latin recognizer on a small copy to decide which recognizer to use
+        int longSide = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        boolean downsampled = longSide > PROBE_MAX_DIMENSION;
+        InputImage probeImage = image;
+        if (downsampled) {
+            float scale = (float) PROBE_MAX_DIMENSION / longSide;
+            probeImage = InputImage.fromBitmap(Bitmap.createScaledBitmap(bitmap,
+                    Math.round(bitmap.getWidth() * scale), Math.round(bitmap.getHeight() * scale), true), 0);
+        }
+
+        TextRecognizer probe = getRecognizer(ScriptRouter.Script.LATIN);
+        if (probe == null) {
+            return;
+        }
+        probe.process(probeImage)
+                .addOnSuccessListener(probeText -> {
+                    if (destroyed) {
+                        return;
+                    }
+                    ScriptRouter.Script route = scriptRouter.route(probeText.getText());
+                    Log.d("CameraFragment", "Script probe routed to " + route);
+                    if (isTiledOcrEnabled()
+                            && TiledTextRecognizer.shouldTile(bitmap.getWidth(), bitmap.getHeight(), TILE_SIZE)) {
+                        runTiledTextRecognition(bitmap, image, route);
+                    } else if (route == ScriptRouter.Script.LATIN && !downsampled) {
+                        // The probe already ran at full resolution, no need to run it again
+                        onRecognitionFinished(route, probeText, image, 1);
+                    } else if (route != null) {
+                        runRoutedTextRecognition(image, route);
                     } else {
-                        // Try Japanese as next fallback
-                        runJapaneseTextRecognition(image);
+                        runCascadeTextRecognition(image, 0, 1);
                     }
                 })
                 .addOnFailureListener(e -> {
-                    Log.e("CameraFragment", "Chinese text recognition failed", e);
-                    // Try Japanese as fallback
-                    runJapaneseTextRecognition(image);
+                    if (destroyed) {
+                        return;
+                    }
+                    Log.e("CameraFragment", "Script probe failed", e);
+                    runCascadeTextRecognition(image, 0, 1);
                 });
     }
-    
-    private void runJapaneseTextRecognition(InputImage image) {
-        TextRecognizer japaneseRecognizer = TextRecognition.getClient(new com.google.mlkit.vision.text.japanese.JapaneseTextRecognizerOptions.Builder().build());
-        
-        japaneseRecognizer.process(image)
+
+    private void runRoutedTextRecognition(InputImage image, ScriptRouter.Script route) {
+        TextRecognizer recognizer = getRecognizer(route);
+        if (recognizer == null) {
+            return;
+        }
+        recognizer.process(image)
                 .addOnSuccessListener(visionText -> {
-                    String japaneseText = visionText.getText();
-                    if (!japaneseText.trim().isEmpty()) {
-                        detectLanguageAndTranslate(japaneseText);
+                    if (destroyed) {
+                        return;
+                    }
+                    if (!visionText.getText().trim().isEmpty()) {
+                        onRecognitionFinished(route, visionText, image, 2);
                     } else {
-                        // Try Latin (Spanish/French/English) as final fallback
-                        runLatinTextRecognition(image);
+                        // Routed recognizer found nothing; count the miss and fall back to the cascade
+                        scriptRouter.recordMiss();
+                        runCascadeTextRecognition(image, 0, 2);
                     }
                 })
                 .addOnFailureListener(e -> {
-                    Log.e("CameraFragment", "Japanese text recognition failed", e);
-                    // Try Latin as fallback
-                    runLatinTextRecognition(image);
+                    if (destroyed) {
+                        return;
+                    }
+                    Log.e("CameraFragment", route + " text recognition failed", e);
+                    scriptRouter.recordMiss();
+                    runCascadeTextRecognition(image, 0, 2);
                 });
     }
-    
-    private void runLatinTextRecognition(InputImage image) {
-        // Use the Chinese text recognizer which can also detect Latin text
-        TextRecognizer latinRecognizer = TextRecognition.getClient(new com.google.mlkit.vision.text.chinese.ChineseTextRecognizerOptions.Builder().build());
-        
-        latinRecognizer.process(image)
+
+    // Tries recognizers in ScriptRouter.CASCADE order until one returns text
+    private void runCascadeTextRecognition(InputImage image, int step, int callsSoFar) {
+        ScriptRouter.Script script = ScriptRouter.CASCADE[step];
+        // Under thermal or battery pressure only the first recognizer (which also reads Latin) runs
+        boolean lastStep = step == ScriptRouter.CASCADE.length - 1
+                || !scanScheduler.getLevel().allowSecondaryRecognizers;
+        TextRecognizer recognizer = getRecognizer(script);
+        if (recognizer == null) {
+            return;
+        }
+        recognizer.process(image)
                 .addOnSuccessListener(visionText -> {
-                    String latinText = visionText.getText();
-                    if (!latinText.trim().isEmpty()) {
-                        detectLanguageAndTranslate(latinText);
+                    if (destroyed) {
+                        return;
+                    }
+                    if (!visionText.getText().trim().isEmpty()) {
+                        onRecognitionFinished(null, visionText, image, callsSoFar + 1);
+                    } else if (!lastStep) {
+                        runCascadeTextRecognition(image, step + 1, callsSoFar + 1);
                     } else {
                         // No text found in any language
                         if (ocrTextView != null) {
@@ -350,105 +925,281 @@ public class CameraFragment extends Fragment {
                     }
                 })
                 .addOnFailureListener(e -> {
-                    Log.e("CameraFragment", "Latin text recognition failed", e);
-                    if (ocrTextView != null) {
+                    if (destroyed) {
+                        return;
+                    }
+                    Log.e("CameraFragment", script + " text recognition failed", e);
+                    if (!lastStep) {
+                        runCascadeTextRecognition(image, step + 1, callsSoFar + 1);
+                    } else if (ocrTextView != null) {
                         ocrTextView.setText(String.format(getString(R.string.failed_to_recognize_text), e.getMessage()));
                     }
                 });
     }
 
-    // New method to detect language and translate text
-    private void detectLanguageAndTranslate(String originalText) {
-        if (translators == null || translators.isEmpty()) {
-            Log.w("CameraFragment", "Translators not available, skipping translation.");
-            highlightKeywords(originalText);
+    // Dense labels: OCR overlapping full-resolution tiles in parallel instead of one big image.
+    // Unsure routes use the Chinese model, which reads Latin text as well.
+    private void runTiledTextRecognition(Bitmap bitmap, InputImage image, @Nullable ScriptRouter.Script route) {
+        ScriptRouter.Script script = route != null ? route : ScriptRouter.Script.CHINESE;
+        int parallelism = scanScheduler.getLevel() == ScanScheduler.Level.NORMAL ? TILE_PARALLELISM : 1;
+        List<TextRecognizer> clients = getTileRecognizers(script);
+        if (clients == null) {
             return;
         }
+        long tiledStart = LatencyLog.now();
+        new TiledTextRecognizer(TILE_SIZE, TILE_OVERLAP, parallelism).recognize(bitmap, clients,
+                new TiledTextRecognizer.Callback() {
+                    @Override
+                    public void onComplete(TiledTextRecognizer.Result result) {
+                        if (destroyed) {
+                            return;
+                        }
+                        String detail = "script=" + script + " tiles=" + result.tileCount + " parallelism=" + parallelism
+                                + " size=" + bitmap.getWidth() + "x" + bitmap.getHeight();
+                        LatencyLog.report("tiled_ocr", tiledStart, detail);
+                        if (result.text.trim().isEmpty()) {
+                            // Only a routed pass can miss; an unsure route was never counted as routed
+                            if (route != null) {
+                                scriptRouter.recordMiss();
+                            }
+                            runCascadeTextRecognition(image, 0, 2);
+                            return;
+                        }
+                        onRecognitionFinished(route, result.text, result.blocks, image, 2);
+                        TextRecognizer single = tilingBaselineReported ? null : getRecognizer(script);
+                        if (single != null) {
+                            // Once per session, time the single-image pass on the same bitmap for comparison
+                            tilingBaselineReported = true;
+                            long singleStart = LatencyLog.now();
+                            single.process(image)
+                                    .addOnCompleteListener(task -> LatencyLog.report("single_image_ocr", singleStart, detail));
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (destroyed) {
+                            return;
+                        }
+                        Log.e("CameraFragment", "Tiled text recognition failed", e);
+                        if (route != null) {
+                            scriptRouter.recordMiss();
+                        }
+                        runCascadeTextRecognition(image, 0, 2);
+                    }
+                });
+    }
+
+    private boolean isTiledOcrEnabled() {
+        if (getContext() == null) return false;
+        return requireContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getBoolean(TiledTextRecognizer.KEY_TILED_OCR, false);
+    }
+
+    private void onRecognitionFinished(@Nullable ScriptRouter.Script routed, Text visionText, InputImage image, int calls) {
+        List<String> blocks = new ArrayList<>();
+        for (Text.TextBlock block : visionText.getTextBlocks()) {
+            blocks.add(block.getText());
+        }
+        onRecognitionFinished(routed, visionText.getText(), blocks, image, calls);
+    }
+
+    private void onRecognitionFinished(@Nullable ScriptRouter.Script routed, String text, List<String> blocks,
+                                       InputImage image, int calls) {
+        if (routed == null) {
+            scriptRouter.recordCascade(ScriptRouter.scriptOf(text));
+        } else if (scriptRouter.recordRouted(routed, text, calls)
+                && scanScheduler.getLevel().allowSecondaryRecognizers) {
+            validateRoute(routed, image);
+        }
+        Log.i("ScriptRouter", scriptRouter.statsSummary());
+        if (recordOcr) {
+            // One frame covering every recognizer pass the capture needed (probe, route, cascade)
+            long now = LatencyLog.now();
+            List<String> lines = Arrays.asList(text.split("\n"));
+            OcrRecording recording = new OcrRecording(OcrRecording.CAPTURE);
+            recording.addFrame(now - recognitionStartMs, now - scanStartMs, lines);
+            recording.finish(now - scanStartMs, lines);
+            saveRecording(recording);
+        }
+        detectLanguageAndTranslate(text, blocks);
+    }
+
+    // Pull with adb from Android/data/<package>/files/ocr_recordings; written on the analysis thread
+    private void saveRecording(OcrRecording recording) {
+        File directory = getContext() != null ? requireContext().getExternalFilesDir("ocr_recordings") : null;
+        if (directory == null || analysisExecutor.isShutdown()) {
+            return;
+        }
+        File file = new File(directory, recording.path + "-" + System.currentTimeMillis() + ".txt");
+        analysisExecutor.execute(() -> {
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                recording.writeTo(out);
+            } catch (IOException e) {
+                Log.w("CameraFragment", "Could not write OCR recording", e);
+            }
+        });
+    }
+
+    // Runs every recognizer on the image in the background to check a route against their outputs
+    private void validateRoute(ScriptRouter.Script routed, InputImage image) {
+        Map<ScriptRouter.Script, String> outputs = new EnumMap<>(ScriptRouter.Script.class);
+        ScriptRouter.Script[] scripts = ScriptRouter.Script.values();
+        for (ScriptRouter.Script script : scripts) {
+            TextRecognizer recognizer = getRecognizer(script);
+            if (recognizer == null) {
+                return;
+            }
+            recognizer.process(image)
+                    .addOnSuccessListener(visionText -> outputs.put(script, visionText.getText()))
+                    .addOnCompleteListener(task -> {
+                        if (destroyed) {
+                            return;
+                        }
+                        if (!task.isSuccessful()) {
+                            outputs.put(script, null);
+                        }
+                        if (outputs.size() < scripts.length) {
+                            return;
+                        }
+                        ScriptRouter.Script actual = ScriptRouter.judge(outputs);
+                        scriptRouter.recordValidation(routed, actual, scripts.length);
+                        Log.i("ScriptRouter", "Validated " + routed + " route, judged " + actual + ": "
+                                + scriptRouter.statsSummary());
+                    });
+        }
+    }
 
+    // Shows the recognized text right away, then patches in translations block by block
+    private void detectLanguageAndTranslate(String originalText, List<String> blocks) {
         String detectedLanguage = detectLanguage(originalText);
         Log.d("CameraFragment", "Detected language: " + detectedLanguage);
-        
-        if (detectedLanguage != null && !detectedLanguage.equals("english")) {
-            Translator translator = translators.get(detectedLanguage);
-            if (translator != null) {
-                translator.translate(originalText)
-                        .addOnSuccessListener(translatedText -> {
-                            String combinedText = translatedText + "\n\n" + originalText;
-                            highlightKeywords(combinedText);
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e("CameraFragment", "Translation failed for " + detectedLanguage, e);
-                            if (getContext() != null) {
-                                Toast.makeText(getContext(), "Translation failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                            }
-                            highlightKeywords(originalText); // Show original text on translation failure
-                        });
-            } else {
-                Log.w("CameraFragment", "No translator available for " + detectedLanguage);
-                highlightKeywords(originalText);
+
+        ScanResult scan = new ScanResult(originalText, detectedLanguage, blocks, scanStartMs);
+        currentScan = scan;
+        showScanResult(scan);
+        LatencyLog.report("time_to_first_highlight", scan.getStartMs(), "profile=" + captureProfile);
+
+        if (detectedLanguage == null || detectedLanguage.equals("english")) {
+            return; // Text is already in English or language not detected
+        }
+        if (scanScheduler.getLevel().deferTranslation) {
+            Log.i("ScanScheduler", "Deferring translation at level " + scanScheduler.getLevel());
+            deferredTranslationScan = scan;
+            return;
+        }
+        translateScan(scan);
+    }
+
+    private void translateScan(ScanResult scan) {
+        String detectedLanguage = scan.getLanguage();
+        List<String> blocks = scan.getSourceBlocks();
+        if (translatorPool == null || translatorPool.isEmpty()) {
+            Log.w("CameraFragment", "Translators not available, skipping translation.");
+            return;
+        }
+        if (!translatorPool.has(detectedLanguage)) {
+            Log.w("CameraFragment", "No translator available for " + detectedLanguage);
+            return;
+        }
+
+        scan.expectTranslations();
+        for (int i = 0; i < blocks.size(); i++) {
+            final int blockIndex = i;
+            // The pool holds the translator for the duration of each call and reloads it if it was evicted
+            translatorPool.translate(detectedLanguage, blocks.get(i))
+                    .addOnSuccessListener(translatedText -> onBlockTranslated(scan, blockIndex, translatedText))
+                    .addOnFailureListener(e -> {
+                        Log.e("CameraFragment", "Translation failed for " + detectedLanguage + " block " + blockIndex, e);
+                        if (blockIndex == 0 && getContext() != null) {
+                            Toast.makeText(getContext(), "Translation failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                        }
+                        onBlockTranslated(scan, blockIndex, null); // Block stays in the original language
+                    });
+        }
+    }
+
+    private void onScanLevelChanged(ScanScheduler.Level from, ScanScheduler.Level to, String reason) {
+        Log.i("ScanScheduler", "Level " + from + " -> " + to + " (" + reason + ")");
+        if (!to.deferTranslation && deferredTranslationScan != null) {
+            ScanResult scan = deferredTranslationScan;
+            deferredTranslationScan = null;
+            if (scan == currentScan) {
+                translateScan(scan);
             }
-        } else {
-            // Text is already in English or language not detected
-            highlightKeywords(originalText);
         }
     }
-    
+
+    private void onBlockTranslated(ScanResult scan, int blockIndex, @Nullable String translatedText) {
+        scan.setTranslation(blockIndex, translatedText);
+        if (scan != currentScan || !isAdded()) {
+            return; // A newer scan replaced this one, or the fragment went away, while the translation was running
+        }
+        showScanResult(scan);
+        if (scan.isTranslationComplete()) {
+            LatencyLog.report("time_to_full_translation", scan.getStartMs(),
+                    "language=" + scan.getLanguage() + " blocks=" + scan.getSourceBlocks().size());
+        }
+    }
+
+    private void showScanResult(ScanResult scan) {
+        if (!isAdded()) {
+            return; // Late OCR, tile or burst callback after the fragment was destroyed
+        }
+        lastResultText = scan.buildDisplayText();
+        highlightKeywords(lastResultText);
+    }
+
+    private PipelineSnapshot buildSnapshot() {
+        Set<ScriptRouter.Script> warm = EnumSet.noneOf(ScriptRouter.Script.class);
+        synchronized (this) {
+            warm.addAll(recognizers.keySet());
+        }
+        return new PipelineSnapshot(lastResultText, warm, scriptRouter.getPreferredCjkScript());
+    }
+
+    // Runs each recognizer once on a tiny blank image so its model is loaded before the next scan
+    private void rewarmRecognizers(Set<ScriptRouter.Script> scripts) {
+        if (scripts.isEmpty()) {
+            return;
+        }
+        Bitmap blank = Bitmap.createBitmap(32, 32, Bitmap.Config.ARGB_8888);
+        for (ScriptRouter.Script script : scripts) {
+            TextRecognizer recognizer = getRecognizer(script);
+            if (recognizer == null) {
+                return;
+            }
+            long start = LatencyLog.now();
+            recognizer.process(InputImage.fromBitmap(blank, 0))
+                    .addOnCompleteListener(task -> LatencyLog.report("recognizer_rewarm", start, "script=" + script));
+        }
+    }
+
     // Simple language detection based on character sets
     private String detectLanguage(String text) {
-        if (text == null || text.isEmpty()) {
+        ScriptRouter.Script script = ScriptRouter.scriptOf(text);
+        if (script == null) {
             return null;
         }
-        
-        boolean hasChinese = false;
-        boolean hasJapanese = false;
-        boolean hasKorean = false;
-        int latinCount = 0;
-        int totalChars = 0;
-        
-        for (char c : text.toCharArray()) {
-            if (Character.isLetter(c)) {
-                totalChars++;
-                Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
-                
-                if (block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS) {
-                    hasChinese = true;
-                } else if (block == Character.UnicodeBlock.HIRAGANA || 
-                          block == Character.UnicodeBlock.KATAKANA || 
-                          block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION) {
-                    hasJapanese = true;
-                } else if (block == Character.UnicodeBlock.HANGUL_SYLLABLES ||
-                          block == Character.UnicodeBlock.HANGUL_JAMO ||
-                          block == Character.UnicodeBlock.HANGUL_COMPATIBILITY_JAMO) {
-                    hasKorean = true;
-                } else if (block == Character.UnicodeBlock.BASIC_LATIN ||
-                          block == Character.UnicodeBlock.LATIN_1_SUPPLEMENT ||
-                          block == Character.UnicodeBlock.LATIN_EXTENDED_A ||
-                          block == Character.UnicodeBlock.LATIN_EXTENDED_B) {
-                    latinCount++;
+        switch (script) {
+            case JAPANESE:
+                return "japanese";
+            case KOREAN:
+                return "korean";
+            case CHINESE:
+                return "chinese";
+            case LATIN:
+            default:
+                // For Latin-based languages, we'll need additional logic
+                // For now, let's use simple heuristics
+                if (containsSpanishWords(text)) {
+                    return "spanish";
+                } else if (containsFrenchWords(text)) {
+                    return "french";
+                } else {
+                    return "english"; // Default to English for Latin text
                 }
-            }
         }
-        
-        // Priority: Japanese > Korean > Chinese > Latin-based languages
-        if (hasJapanese) {
-            return "japanese";
-        } else if (hasKorean) {
-            return "korean";
-        } else if (hasChinese) {
-            return "chinese";
-        } else if (latinCount > 0) {
-            // For Latin-based languages, we'll need additional logic
-            // For now, let's use simple heuristics
-            if (containsSpanishWords(text)) {
-                return "spanish";
-            } else if (containsFrenchWords(text)) {
-                return "french";
-            } else {
-                return "english"; // Default to English for Latin text
-            }
-        }
-        
-        return null;
     }
     
     // Simple Spanish detection based on common words/patterns
@@ -477,6 +1228,40 @@ public class CameraFragment extends Fragment {
         return false;
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        refreshLiveKeywords();
+    }
+
+    @Override
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(KEY_SNAPSHOT, buildSnapshot().encode());
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        powerSource.removeThermalStatusListener(thermalListener);
+        mainHandler.removeCallbacksAndMessages(null);
+        analysisExecutor.shutdown();
+        synchronized (this) {
+            destroyed = true;
+            for (TextRecognizer recognizer : recognizers.values()) {
+                recognizer.close();
+            }
+            recognizers.clear();
+            for (List<TextRecognizer> clients : tileRecognizers.values()) {
+                for (TextRecognizer recognizer : clients) {
+                    recognizer.close();
+                }
+            }
+            tileRecognizers.clear();
+        }
+        tileExecutor.shutdown();
+    }
+
     @Override
     public void onRequestPermissionsResult(int requestCode,
                                            @NonNull String[] permissions,
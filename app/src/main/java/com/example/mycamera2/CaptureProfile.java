@@ -0,0 +1,64 @@
+package com.example.mycamera2;
+
+import android.content.SharedPreferences;
+import android.util.Size;
+
+import androidx.camera.core.ImageCapture;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+
+/**
+ * Capture presets trading shutter latency against the amount of detail handed to OCR.
+ * The selected profile is stored in the shared "AllergyPrefs" preferences.
+ */
+public enum CaptureProfile {
+    // Small frames decode and OCR fast; plenty for short ingredient lists held close to the lens
+    LATENCY(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY, new Size(1280, 960), 75),
+    BALANCED(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY, new Size(1920, 1440), 90),
+    // Near full sensor resolution through the slower quality-first pipeline for tiny print
+    MAX_DETAIL(ImageCapture.CAPTURE_MODE_MAXIMIZE_QUALITY, new Size(4032, 3024), 100);
+
+    public static final String KEY_CAPTURE_PROFILE = "capture_profile";
+    public static final CaptureProfile DEFAULT = BALANCED;
+
+    private final int captureMode;
+    private final Size targetResolution;
+    private final int jpegQuality;
+
+    CaptureProfile(int captureMode, Size targetResolution, int jpegQuality) {
+        this.captureMode = captureMode;
+        this.targetResolution = targetResolution;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Builds the ImageCapture use case for this profile. Output stays JPEG because
+     * {@link ImageUtils#imageProxyToBitmap} decodes the first plane as a JPEG stream.
+     */
+    public ImageCapture buildImageCapture() {
+        ResolutionSelector resolutionSelector = new ResolutionSelector.Builder()
+                .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                .setResolutionStrategy(new ResolutionStrategy(targetResolution,
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                .build();
+        return new ImageCapture.Builder()
+                .setCaptureMode(captureMode)
+                .setResolutionSelector(resolutionSelector)
+                .setJpegQuality(jpegQuality)
+                .build();
+    }
+
+    public static CaptureProfile fromPreferences(SharedPreferences prefs) {
+        String name = prefs.getString(KEY_CAPTURE_PROFILE, DEFAULT.name());
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return DEFAULT; // Stale value from an older build
+        }
+    }
+
+    public void saveTo(SharedPreferences prefs) {
+        prefs.edit().putString(KEY_CAPTURE_PROFILE, name()).apply();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.mycamera2;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Writes timing measurements as single grep-friendly logcat lines, e.g.
+ * {@code metric=shutter_to_callback ms=412 model=Pixel 7 profile=BALANCED}.
+ * The device model is always included so numbers can be compared per device.
+ */
+public final class LatencyLog {
+
+    private static final String TAG = "Latency";
+
+    private LatencyLog() {
+    }
+
+    public static long now() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    public static void report(String metric, long startMs, String detail) {
+        long elapsed = SystemClock.elapsedRealtime() - startMs;
+        Log.i(TAG, "metric=" + metric + " ms=" + elapsed + " model=" + Build.MODEL
+                + (detail == null || detail.isEmpty() ? "" : " " + detail));
+    }
+}
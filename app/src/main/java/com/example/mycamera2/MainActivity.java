@@ -8,22 +8,27 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.mlkit.common.model.DownloadConditions;
 import com.google.mlkit.nl.translate.TranslateLanguage;
-import com.google.mlkit.nl.translate.Translation;
 import com.google.mlkit.nl.translate.Translator;
 import com.google.mlkit.nl.translate.TranslatorOptions;
-import java.util.HashMap;
-import java.util.Map;
 
 public class MainActivity extends AppCompatActivity implements BottomNavigationView.OnNavigationItemSelectedListener {
 
     // We'll keep the translators here for now, but it might be better placed in CameraFragment
     // if only the camera feature uses translation.
-    private Map<String, Translator> translators = new HashMap<>();
+    // Translators are handed out by the pool and evicted when idle or under memory pressure.
+    private final TranslatorPool translatorPool = new TranslatorPool();
+
+    // Fragments are kept alive and toggled with show/hide so the camera stays bound
+    // and recognizers stay warm when switching tabs.
+    private static final String TAG_CAMERA = "camera";
+    private static final String TAG_SETTINGS = "settings";
+    private String activeTag;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -38,8 +43,12 @@ public class MainActivity extends AppCompatActivity implements BottomNavigationV
 
         // Load the default fragment (CameraFragment)
         if (savedInstanceState == null) {
-            loadFragment(new CameraFragment());
+            showFragment(TAG_CAMERA);
             bottomNavigationView.setSelectedItemId(R.id.navigation_camera); // Highlight the camera icon
+        } else {
+            // The FragmentManager restores both fragments; pick up whichever one is visible
+            Fragment settings = getSupportFragmentManager().findFragmentByTag(TAG_SETTINGS);
+            activeTag = settings != null && !settings.isHidden() ? TAG_SETTINGS : TAG_CAMERA;
         }
     }
 
@@ -66,42 +75,75 @@ public class MainActivity extends AppCompatActivity implements BottomNavigationV
                     .setTargetLanguage(targetLanguage)
                     .build();
             
-            Translator translator = Translation.getClient(options);
-            translators.put(key, translator);
+            translatorPool.register(key, options);
             
+            // Only held for the download; the pool evicts it once idle
+            Translator translator = translatorPool.acquire(key);
             translator.downloadModelIfNeeded(conditions)
                     .addOnSuccessListener(v -> Log.d("Translator", key + "-English model downloaded."))
                     .addOnFailureListener(e -> {
                         Log.e("Translator", key + " model download failed: " + e.getMessage());
                         Toast.makeText(MainActivity.this, key + " translator model download failed.", Toast.LENGTH_LONG).show();
-                    });
-            
-            // Manage translator lifecycle
-            getLifecycle().addObserver(translator);
+                    })
+                    .addOnCompleteListener(task -> translatorPool.release(key));
         }
     }
 
-    private boolean loadFragment(Fragment fragment) {
-        if (fragment != null) {
-            FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
-            transaction.replace(R.id.fragment_container, fragment);
-            // transaction.addToBackStack(null); // Optional: if you want to add fragment to back stack
-            transaction.commit();
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        translatorPool.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        translatorPool.onLowMemory();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        translatorPool.closeAll();
+    }
+
+    private boolean showFragment(String tag) {
+        if (tag.equals(activeTag)) {
             return true;
         }
-        return false;
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        FragmentTransaction transaction = fragmentManager.beginTransaction();
+        Fragment target = fragmentManager.findFragmentByTag(tag);
+        if (target == null) {
+            target = TAG_CAMERA.equals(tag) ? new CameraFragment() : new SettingsFragment();
+            transaction.add(R.id.fragment_container, target, tag);
+        } else {
+            if (target instanceof CameraFragment) {
+                ((CameraFragment) target).markTabSwitch();
+            }
+            transaction.show(target);
+        }
+        if (activeTag != null) {
+            Fragment current = fragmentManager.findFragmentByTag(activeTag);
+            if (current != null) {
+                transaction.hide(current);
+            }
+        }
+        // transaction.addToBackStack(null); // Optional: if you want to add fragment to back stack
+        transaction.commit();
+        activeTag = tag;
+        return true;
     }
 
     @Override
     public boolean onNavigationItemSelected(@NonNull MenuItem item) {
-        Fragment fragment = null;
         int itemId = item.getItemId();
         if (itemId == R.id.navigation_camera) {
-            fragment = new CameraFragment();
+            return showFragment(TAG_CAMERA);
         } else if (itemId == R.id.navigation_settings) {
-            fragment = new SettingsFragment();
+            return showFragment(TAG_SETTINGS);
         }
-        return loadFragment(fragment);
+        return false;
     }
 
     // The following methods related to camera permission and OCR are currently removed from MainActivity.
@@ -116,13 +158,8 @@ public class MainActivity extends AppCompatActivity implements BottomNavigationV
     // - translateChineseToEnglishAndDisplay() // Or keep a reference to translator if initialized here
     // - onRequestPermissionsResult()
 
-    // Getter for the translators if CameraFragment needs them and they're initialized in MainActivity
-    public Map<String, Translator> getTranslators() {
-        return translators;
-    }
-    
-    // Getter for specific translator (backward compatibility)
-    public Translator getChineseToEnglishTranslator() {
-        return translators.get("chinese");
+    // Getter for the translator pool if CameraFragment needs it and it's initialized in MainActivity
+    public TranslatorPool getTranslatorPool() {
+        return translatorPool;
     }
 }
@@ -0,0 +1,317 @@
+package com.example.mycamera2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fuses the OCR output of several cheap frames of the same label into one result. Lines are
+ * matched across frames, tokens are aligned against a reference reading of each line and every
+ * position is decided by majority vote; a token's confidence is the share of frames that agree.
+ *
+ * Add frames one at a time with {@link #addFrame}; each call returns the fused result so far.
+ */
+public final class OcrConsensus {
+
+    public static final class Token {
+        public final String text;
+        /** Fraction of frames that read this token at this position, 0..1. */
+        public final float confidence;
+
+        Token(String text, float confidence) {
+            this.text = text;
+            this.confidence = confidence;
+        }
+    }
+
+    public static final class Line {
+        public final List<Token> tokens;
+
+        Line(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        public String getText() {
+            StringBuilder text = new StringBuilder();
+            String previous = null;
+            for (Token token : tokens) {
+                if (previous != null && !(isCjk(previous) && isCjk(token.text))) {
+                    text.append(' ');
+                }
+                text.append(token.text);
+                previous = token.text;
+            }
+            return text.toString();
+        }
+    }
+
+    public static final class Result {
+        public final List<Line> lines;
+        public final int frameCount;
+
+        Result(List<Line> lines, int frameCount) {
+            this.lines = lines;
+            this.frameCount = frameCount;
+        }
+
+        public String getText() {
+            StringBuilder text = new StringBuilder();
+            for (Line line : lines) {
+                if (text.length() > 0) text.append('\n');
+                text.append(line.getText());
+            }
+            return text.toString();
+        }
+
+        public List<String> getLineTexts() {
+            List<String> texts = new ArrayList<>(lines.size());
+            for (Line line : lines) {
+                texts.add(line.getText());
+            }
+            return texts;
+        }
+    }
+
+    // Lines less similar than this are treated as different lines
+    private static final float MIN_LINE_SIMILARITY = 0.5f;
+    private static final float GAP_COST = 1f;
+
+    // Tokenized lines of each frame
+    private final List<List<List<String>>> frames = new ArrayList<>();
+
+    public Result addFrame(List<String> lines) {
+        List<List<String>> frame = new ArrayList<>();
+        for (String line : lines) {
+            List<String> tokens = tokenize(line);
+            if (!tokens.isEmpty()) {
+                frame.add(tokens);
+            }
+        }
+        frames.add(frame);
+        return fuse();
+    }
+
+    public void reset() {
+        frames.clear();
+    }
+
+    public Result fuse() {
+        int frameCount = frames.size();
+        List<Cluster> clusters = clusterLines();
+        Collections.sort(clusters, (a, b) -> Float.compare(a.position(), b.position()));
+        // With three or more frames, a line most frames did not see is treated as noise
+        int minVotes = frameCount >= 3 ? (frameCount + 1) / 2 : 1;
+        List<Line> fused = new ArrayList<>();
+        for (Cluster cluster : clusters) {
+            if (cluster.members.size() < minVotes) continue;
+            Line line = voteTokens(cluster, frameCount);
+            if (!line.tokens.isEmpty()) {
+                fused.add(line);
+            }
+        }
+        return new Result(fused, frameCount);
+    }
+
+    private static final class Cluster {
+        final List<List<String>> members = new ArrayList<>();
+        // Relative position (line index / line count) of each member within its frame
+        final List<Float> positions = new ArrayList<>();
+        final List<Integer> frameIndexes = new ArrayList<>();
+
+        float position() {
+            float sum = 0;
+            for (float p : positions) sum += p;
+            return sum / positions.size();
+        }
+    }
+
+    // Each line joins the most similar cluster that has no line from its frame yet
+    private List<Cluster> clusterLines() {
+        List<Cluster> clusters = new ArrayList<>();
+        for (int f = 0; f < frames.size(); f++) {
+            List<List<String>> frame = frames.get(f);
+            for (int l = 0; l < frame.size(); l++) {
+                List<String> tokens = frame.get(l);
+                String text = join(tokens);
+                Cluster best = null;
+                float bestSimilarity = MIN_LINE_SIMILARITY;
+                for (Cluster cluster : clusters) {
+                    if (cluster.frameIndexes.contains(f)) continue;
+                    float similarity = similarity(text, join(cluster.members.get(0)));
+                    if (similarity >= bestSimilarity) {
+                        bestSimilarity = similarity;
+                        best = cluster;
+                    }
+                }
+                if (best == null) {
+                    best = new Cluster();
+                    clusters.add(best);
+                }
+                best.members.add(tokens);
+                best.positions.add(frame.size() == 1 ? 0f : (float) l / (frame.size() - 1));
+                best.frameIndexes.add(f);
+            }
+        }
+        return clusters;
+    }
+
+    private static Line voteTokens(Cluster cluster, int frameCount) {
+        List<String> reference = pickReference(cluster.members);
+        int positions = reference.size();
+        List<Map<String, Integer>> votes = new ArrayList<>(positions);
+        for (int i = 0; i < positions; i++) {
+            votes.add(new HashMap<>());
+        }
+        for (List<String> member : cluster.members) {
+            String[] aligned = align(reference, member);
+            for (int i = 0; i < positions; i++) {
+                String token = aligned[i] != null ? aligned[i] : "";  // "" is a vote for dropping the position
+                Map<String, Integer> counts = votes.get(i);
+                Integer count = counts.get(token);
+                counts.put(token, count == null ? 1 : count + 1);
+            }
+        }
+        List<Token> tokens = new ArrayList<>();
+        for (int i = 0; i < positions; i++) {
+            String winner = null;
+            int winnerVotes = 0;
+            for (Map.Entry<String, Integer> entry : votes.get(i).entrySet()) {
+                int count = entry.getValue();
+                // Ties go to the reference reading
+                if (count > winnerVotes || (count == winnerVotes && entry.getKey().equals(reference.get(i)))) {
+                    winner = entry.getKey();
+                    winnerVotes = count;
+                }
+            }
+            if (winner != null && !winner.isEmpty()) {
+                tokens.add(new Token(winner, (float) winnerVotes / frameCount));
+            }
+        }
+        return new Line(tokens);
+    }
+
+    // The reading whose token count is most common, so dropped or split words don't shift positions
+    private static List<String> pickReference(List<List<String>> members) {
+        Map<Integer, Integer> lengthCounts = new HashMap<>();
+        for (List<String> member : members) {
+            Integer count = lengthCounts.get(member.size());
+            lengthCounts.put(member.size(), count == null ? 1 : count + 1);
+        }
+        List<String> reference = members.get(0);
+        int referenceCount = 0;
+        for (List<String> member : members) {
+            int count = lengthCounts.get(member.size());
+            if (count > referenceCount) {
+                reference = member;
+                referenceCount = count;
+            }
+        }
+        return reference;
+    }
+
+    /**
+     * Aligns {@code tokens} to {@code reference} with a Needleman-Wunsch pass whose substitution
+     * cost is the normalized edit distance between tokens. Returns, for each reference position,
+     * the aligned token or null for a gap; tokens not in the reference are dropped.
+     */
+    static String[] align(List<String> reference, List<String> tokens) {
+        int n = reference.size();
+        int m = tokens.size();
+        float[][] cost = new float[n + 1][m + 1];
+        for (int i = 1; i <= n; i++) cost[i][0] = i * GAP_COST;
+        for (int j = 1; j <= m; j++) cost[0][j] = j * GAP_COST;
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= m; j++) {
+                float substitute = cost[i - 1][j - 1] + (1f - similarity(reference.get(i - 1), tokens.get(j - 1)));
+                cost[i][j] = Math.min(substitute, Math.min(cost[i - 1][j], cost[i][j - 1]) + GAP_COST);
+            }
+        }
+        String[] aligned = new String[n];
+        int i = n;
+        int j = m;
+        while (i > 0 && j > 0) {
+            float substitute = cost[i - 1][j - 1] + (1f - similarity(reference.get(i - 1), tokens.get(j - 1)));
+            if (cost[i][j] == substitute) {
+                aligned[i - 1] = tokens.get(j - 1);
+                i--;
+                j--;
+            } else if (cost[i][j] == cost[i - 1][j] + GAP_COST) {
+                i--;
+            } else {
+                j--;
+            }
+        }
+        return aligned;
+    }
+
+    // 1 - normalized Levenshtein distance
+    static float similarity(String a, String b) {
+        if (a.equals(b)) return 1f;
+        int longest = Math.max(a.length(), b.length());
+        if (longest == 0) return 1f;
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return 1f - (float) previous[b.length()] / longest;
+    }
+
+    // Whitespace-separated words; CJK runs are split into single characters since they have no spaces
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        for (String word : line.trim().split("\\s+")) {
+            if (word.isEmpty()) continue;
+            StringBuilder latin = new StringBuilder();
+            for (int i = 0; i < word.length(); ) {
+                int codePoint = word.codePointAt(i);
+                String character = new String(Character.toChars(codePoint));
+                if (isCjk(character)) {
+                    if (latin.length() > 0) {
+                        tokens.add(latin.toString());
+                        latin.setLength(0);
+                    }
+                    tokens.add(character);
+                } else {
+                    latin.append(character);
+                }
+                i += Character.charCount(codePoint);
+            }
+            if (latin.length() > 0) {
+                tokens.add(latin.toString());
+            }
+        }
+        return tokens;
+    }
+
+    private static String join(List<String> tokens) {
+        StringBuilder text = new StringBuilder();
+        for (String token : tokens) {
+            if (text.length() > 0) text.append(' ');
+            text.append(token);
+        }
+        return text.toString();
+    }
+
+    private static boolean isCjk(String token) {
+        if (token.isEmpty()) return false;
+        int codePoint = token.codePointAt(0);
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL
+                // Full-width punctuation such as '，' and '：' sits between CJK characters without spaces
+                || block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.mycamera2;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-frame OCR output and recognizer timings of one scan, recorded on debuggable builds so a
+ * burst and a full-resolution capture of the same label can be replayed off device (see
+ * OcrConsensusTest). Plain text, one field per line, so JVM tests can read it without org.json:
+ * <pre>
+ * path burst
+ * end_to_end_ms 1840
+ * frame 212 530
+ * line INGREDIENTS: WHEAT FLOUR, SUGAR, PEANUT OIL,
+ * result INGREDIENTS: WHEAT FLOUR, SUGAR, PEANUT OIL,
+ * </pre>
+ * {@code frame} carries the recognizer time and when the frame finished, both in ms since the
+ * scan started; the {@code line}s after it are that frame's OCR lines. {@code result} lines are
+ * what the app went on to translate: the fused text for a burst, the recognized text for a capture.
+ */
+public final class OcrRecording {
+
+    public static final String BURST = "burst";
+    public static final String CAPTURE = "capture";
+
+    public static final class Frame {
+        public final long recognizerMs;
+        public final long doneAtMs;
+        public final List<String> lines;
+
+        Frame(long recognizerMs, long doneAtMs, List<String> lines) {
+            this.recognizerMs = recognizerMs;
+            this.doneAtMs = doneAtMs;
+            this.lines = lines;
+        }
+    }
+
+    public final String path;
+    private final List<Frame> frames = new ArrayList<>();
+    private final List<String> result = new ArrayList<>();
+    private long endToEndMs = -1;
+
+    public OcrRecording(String path) {
+        this.path = path;
+    }
+
+    public void addFrame(long recognizerMs, long doneAtMs, List<String> lines) {
+        frames.add(new Frame(recognizerMs, doneAtMs, new ArrayList<>(lines)));
+    }
+
+    /** Closes the recording with the time from scan start to the recognized text. */
+    public void finish(long endToEndMs, List<String> resultLines) {
+        this.endToEndMs = endToEndMs;
+        result.clear();
+        result.addAll(resultLines);
+    }
+
+    public List<Frame> getFrames() {
+        return Collections.unmodifiableList(frames);
+    }
+
+    public List<String> getResult() {
+        return Collections.unmodifiableList(result);
+    }
+
+    /** Scan start to recognized text, or -1 if the recording was never finished. */
+    public long getEndToEndMs() {
+        return endToEndMs;
+    }
+
+    /** Recognizer time summed over all frames, i.e. OCR work rather than wall time. */
+    public long getRecognizerMs() {
+        long total = 0;
+        for (Frame frame : frames) {
+            total += frame.recognizerMs;
+        }
+        return total;
+    }
+
+    public void writeTo(Writer out) throws IOException {
+        out.write("path " + path + "\n");
+        out.write("end_to_end_ms " + endToEndMs + "\n");
+        for (Frame frame : frames) {
+            out.write("frame " + frame.recognizerMs + " " + frame.doneAtMs + "\n");
+            for (String line : frame.lines) {
+                out.write("line " + oneLine(line) + "\n");
+            }
+        }
+        for (String line : result) {
+            out.write("result " + oneLine(line) + "\n");
+        }
+    }
+
+    public static OcrRecording read(BufferedReader in) throws IOException {
+        OcrRecording recording = null;
+        Frame frame = null;
+        String row;
+        while ((row = in.readLine()) != null) {
+            if (row.isEmpty()) continue;
+            int space = row.indexOf(' ');
+            String key = space < 0 ? row : row.substring(0, space);
+            String value = space < 0 ? "" : row.substring(space + 1);
+            if (key.equals("path")) {
+                recording = new OcrRecording(value);
+                continue;
+            }
+            if (recording == null) {
+                throw new IOException("Recording does not start with a path: " + row);
+            }
+            try {
+                switch (key) {
+                    case "end_to_end_ms":
+                        recording.endToEndMs = Long.parseLong(value);
+                        break;
+                    case "frame":
+                        String[] times = value.split(" ");
+                        frame = new Frame(Long.parseLong(times[0]), Long.parseLong(times[1]), new ArrayList<>());
+                        recording.frames.add(frame);
+                        break;
+                    case "line":
+                        if (frame == null) {
+                            throw new IOException("OCR line before any frame: " + row);
+                        }
+                        frame.lines.add(value);
+                        break;
+                    case "result":
+                        recording.result.add(value);
+                        break;
+                    default:
+                        throw new IOException("Unknown recording field: " + row);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Malformed recording line: " + row, e);
+            }
+        }
+        if (recording == null) {
+            throw new IOException("Empty recording");
+        }
+        return recording;
+    }
+
+    // ML Kit line text has no line breaks, but a stray one would split the record
+    private static String oneLine(String text) {
+        return text.replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.mycamera2;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Small snapshot of the scan pipeline (last result, which recognizers were warm) so a recreated
+ * CameraFragment can show something useful straight away and re-warm models in the background.
+ * It travels in the fragment's saved state, which covers both rotation and process death, so a
+ * fresh launch never shows an old product's result.
+ */
+public final class PipelineSnapshot {
+
+    private static final String TAG = "PipelineSnapshot";
+
+    @Nullable
+    public final String resultText;
+    public final Set<ScriptRouter.Script> warmRecognizers;
+    @Nullable
+    public final ScriptRouter.Script preferredCjkScript;
+
+    public PipelineSnapshot(@Nullable String resultText, Set<ScriptRouter.Script> warmRecognizers,
+                            @Nullable ScriptRouter.Script preferredCjkScript) {
+        this.resultText = resultText;
+        this.warmRecognizers = warmRecognizers;
+        this.preferredCjkScript = preferredCjkScript;
+    }
+
+    /** Serialized form for the saved-state Bundle; null if it cannot be encoded. */
+    @Nullable
+    public String encode() {
+        try {
+            return toJson(this).toString();
+        } catch (JSONException e) {
+            Log.w(TAG, "Could not encode snapshot", e);
+            return null;
+        }
+    }
+
+    /** Parses {@link #encode()} output; null if it is missing or unreadable. */
+    @Nullable
+    public static PipelineSnapshot decode(@Nullable String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return fromJson(new JSONObject(json));
+        } catch (JSONException | IllegalArgumentException e) {
+            Log.w(TAG, "Discarding unreadable snapshot", e);
+            return null;
+        }
+    }
+
+    private static JSONObject toJson(PipelineSnapshot snapshot) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("resultText", snapshot.resultText);
+        JSONArray warm = new JSONArray();
+        for (ScriptRouter.Script script : snapshot.warmRecognizers) {
+            warm.put(script.name());
+        }
+        json.put("warmRecognizers", warm);
+        if (snapshot.preferredCjkScript != null) {
+            json.put("preferredCjkScript", snapshot.preferredCjkScript.name());
+        }
+        return json;
+    }
+
+    private static PipelineSnapshot fromJson(JSONObject json) throws JSONException {
+        Set<ScriptRouter.Script> warm = EnumSet.noneOf(ScriptRouter.Script.class);
+        JSONArray array = json.optJSONArray("warmRecognizers");
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                warm.add(ScriptRouter.Script.valueOf(array.getString(i)));
+            }
+        }
+        String cjk = json.optString("preferredCjkScript", null);
+        return new PipelineSnapshot(
+                json.isNull("resultText") ? null : json.getString("resultText"),
+                warm,
+                cjk != null ? ScriptRouter.Script.valueOf(cjk) : null);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.mycamera2;
+
+import java.util.List;
+
+/**
+ * Result of one scan that is rendered progressively: the recognized text is shown as soon
+ * as OCR finishes and each block's translation is patched in as it completes.
+ */
+public final class ScanResult {
+
+    private final String originalText;
+    private final String language;
+    private final List<String> sourceBlocks;
+    private final String[] translatedBlocks;
+    private final long startMs;
+    private int pendingTranslations;
+
+    ScanResult(String originalText, String language, List<String> sourceBlocks, long startMs) {
+        this.originalText = originalText;
+        this.language = language;
+        this.sourceBlocks = sourceBlocks;
+        this.translatedBlocks = new String[sourceBlocks.size()];
+        this.startMs = startMs;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public List<String> getSourceBlocks() {
+        return sourceBlocks;
+    }
+
+    public long getStartMs() {
+        return startMs;
+    }
+
+    void expectTranslations() {
+        pendingTranslations = sourceBlocks.size();
+    }
+
+    /** Stores a block translation; a null translation keeps the block untranslated. */
+    void setTranslation(int blockIndex, String translated) {
+        translatedBlocks[blockIndex] = translated;
+        pendingTranslations--;
+    }
+
+    public boolean isTranslationComplete() {
+        return pendingTranslations <= 0;
+    }
+
+    /**
+     * Translated blocks received so far (in block order), a blank line, then the original
+     * text. Without any translation yet this is just the original text.
+     */
+    public String buildDisplayText() {
+        StringBuilder translated = new StringBuilder();
+        for (String block : translatedBlocks) {
+            if (block == null) continue;
+            if (translated.length() > 0) translated.append('\n');
+            translated.append(block);
+        }
+        if (translated.length() == 0) {
+            return originalText;
+        }
+        return translated + "\n\n" + originalText;
+    }
+}
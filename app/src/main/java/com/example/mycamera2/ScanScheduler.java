@@ -0,0 +1,156 @@
+package com.example.mycamera2;
+
+import android.os.PowerManager;
+
+/**
+ * Scales scanning work down as the device heats up or the battery drains: analysis frames
+ * are spaced out, OCR input is downscaled, secondary recognizers are skipped and finally
+ * translation is deferred until conditions improve.
+ *
+ * Device state comes from a {@link PowerSource} so the policy can be unit tested with a fake.
+ */
+public final class ScanScheduler {
+
+    public interface PowerSource {
+        /** One of the {@code PowerManager.THERMAL_STATUS_*} constants. */
+        int getThermalStatus();
+
+        /** Battery charge from 0 to 100. */
+        int getBatteryPercent();
+
+        boolean isCharging();
+    }
+
+    public interface Listener {
+        void onLevelChanged(Level from, Level to, String reason);
+    }
+
+    public enum Level {
+        NORMAL(0, 0, true, false),
+        REDUCED(250, 1920, true, false),
+        CONSERVE(750, 1280, false, false),
+        CRITICAL(2000, 960, false, true);
+
+        /** Minimum time between analyzed live frames. */
+        public final long minFrameIntervalMs;
+        /** Longest side OCR input is downscaled to, 0 for no limit. */
+        public final int maxOcrDimension;
+        public final boolean allowSecondaryRecognizers;
+        public final boolean deferTranslation;
+
+        Level(long minFrameIntervalMs, int maxOcrDimension, boolean allowSecondaryRecognizers,
+              boolean deferTranslation) {
+            this.minFrameIntervalMs = minFrameIntervalMs;
+            this.maxOcrDimension = maxOcrDimension;
+            this.allowSecondaryRecognizers = allowSecondaryRecognizers;
+            this.deferTranslation = deferTranslation;
+        }
+    }
+
+    static final int BATTERY_LOW = 30;
+    static final int BATTERY_VERY_LOW = 15;
+    static final int BATTERY_CRITICAL = 5;
+    // Battery must climb this far past a threshold before the level steps back down
+    static final int BATTERY_HYSTERESIS = 3;
+    static final long REEVALUATE_INTERVAL_MS = 10_000;
+
+    private final PowerSource powerSource;
+    private Listener listener;
+
+    private Level level = Level.NORMAL;
+    // Battery's share of the level, kept separately so hysteresis only applies to battery recovery
+    private Level batteryLevel = Level.NORMAL;
+    private long lastEvaluationMs = Long.MIN_VALUE;
+    private long lastFrameMs = Long.MIN_VALUE;
+
+    public ScanScheduler(PowerSource powerSource) {
+        this.powerSource = powerSource;
+    }
+
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public synchronized Level getLevel() {
+        return level;
+    }
+
+    /** Re-reads the power source and moves to the matching level. */
+    public Level evaluate(long nowMs) {
+        Level from;
+        Level to;
+        String reason;
+        Listener currentListener;
+        synchronized (this) {
+            lastEvaluationMs = nowMs;
+            int thermal = powerSource.getThermalStatus();
+            int battery = powerSource.getBatteryPercent();
+            boolean charging = powerSource.isCharging();
+
+            Level forBattery = levelForBattery(battery, charging);
+            if (forBattery.ordinal() < batteryLevel.ordinal()) {
+                // Only relax once the battery is clearly past the threshold, to avoid flapping
+                forBattery = levelForBattery(battery - BATTERY_HYSTERESIS, charging);
+            }
+            batteryLevel = forBattery;
+            Level target = max(levelForThermal(thermal), forBattery);
+            if (target == level) {
+                return level;
+            }
+            from = level;
+            to = target;
+            level = target;
+            reason = "thermal=" + thermal + " battery=" + battery + (charging ? " charging" : "");
+            currentListener = listener;
+        }
+        if (currentListener != null) {
+            currentListener.onLevelChanged(from, to, reason);
+        }
+        return to;
+    }
+
+    /**
+     * Whether a live analysis frame arriving at {@code nowMs} should be processed. Also
+     * re-evaluates the power state every {@link #REEVALUATE_INTERVAL_MS}.
+     */
+    public boolean shouldAnalyzeFrame(long nowMs) {
+        if (lastEvaluationMs == Long.MIN_VALUE || nowMs - lastEvaluationMs >= REEVALUATE_INTERVAL_MS) {
+            evaluate(nowMs);
+        }
+        synchronized (this) {
+            if (lastFrameMs != Long.MIN_VALUE && nowMs - lastFrameMs < level.minFrameIntervalMs) {
+                return false;
+            }
+            lastFrameMs = nowMs;
+            return true;
+        }
+    }
+
+    static Level levelForThermal(int thermalStatus) {
+        if (thermalStatus >= PowerManager.THERMAL_STATUS_CRITICAL) {
+            return Level.CRITICAL;
+        } else if (thermalStatus >= PowerManager.THERMAL_STATUS_SEVERE) {
+            return Level.CONSERVE;
+        } else if (thermalStatus >= PowerManager.THERMAL_STATUS_MODERATE) {
+            return Level.REDUCED;
+        }
+        return Level.NORMAL;
+    }
+
+    static Level levelForBattery(int percent, boolean charging) {
+        if (charging) {
+            return Level.NORMAL;
+        } else if (percent <= BATTERY_CRITICAL) {
+            return Level.CRITICAL;
+        } else if (percent <= BATTERY_VERY_LOW) {
+            return Level.CONSERVE;
+        } else if (percent <= BATTERY_LOW) {
+            return Level.REDUCED;
+        }
+        return Level.NORMAL;
+    }
+
+    private static Level max(Level a, Level b) {
+        return a.ordinal() >= b.ordinal() ? a : b;
+    }
+}
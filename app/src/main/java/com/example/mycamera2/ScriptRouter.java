@@ -0,0 +1,262 @@
+package com.example.mycamera2;
+
+import java.util.Map;
+
+/**
+ * Picks the one text recognizer an image should go to, based on a cheap probe pass of the
+ * bundled Latin recognizer over a downsampled copy of the image.
+ *
+ * The Latin model reads Latin text well and turns CJK text into a few short, vowel-less
+ * fragments, so the probe tells Latin from non-Latin reliably. It cannot tell Chinese,
+ * Japanese and Korean apart; for those the last confirmed CJK script is reused, since
+ * labels scanned in one session tend to share a script. Everything else is "unsure" and
+ * goes through the full recognizer cascade.
+ *
+ * A routed recognizer mostly emits its own script, so its output cannot confirm the route.
+ * Instead every {@link #VALIDATION_INTERVAL}th routed scan, and any routed scan whose output
+ * looks misread, is checked by running all recognizers and {@link #judge judging} their
+ * outputs. Accuracy and the CJK prior only come from those checks and from cascade scans.
+ */
+public final class ScriptRouter {
+
+    public enum Script { LATIN, CHINESE, JAPANESE, KOREAN }
+
+    // Order the cascade tries recognizers in when routing is unsure
+    public static final Script[] CASCADE = {Script.CHINESE, Script.JAPANESE, Script.KOREAN, Script.LATIN};
+
+    private static final int MIN_LATIN_WORDS = 3;
+    private static final float MIN_LATIN_RATIO = 0.6f;
+    private static final float MAX_CJK_LATIN_RATIO = 0.3f;
+    // Routed outputs with fewer letters than this among their non-space characters look misread
+    private static final float MIN_LETTER_DENSITY = 0.6f;
+    // Kana or Hangul share of a recognizer's letters needed to call the text Japanese or Korean
+    private static final float MIN_SCRIPT_SHARE = 0.2f;
+    static final int VALIDATION_INTERVAL = 5;
+
+    private Script lastCjkScript;
+
+    private int routedScans;
+    private int validatedRoutes;
+    private int correctRoutes;
+    private int cascadeScans;
+    private int recognizerCallsSaved;
+
+    /** Returns the recognizer to use, or null when the probe is inconclusive. */
+    public Script route(String probeText) {
+        if (probeText == null) {
+            return null;
+        }
+        int wordLikeChars = 0;
+        int wordLikeTokens = 0;
+        int totalChars = 0;
+        for (String token : probeText.split("\\s+")) {
+            if (token.isEmpty()) continue;
+            totalChars += token.length();
+            if (isWordLike(token)) {
+                wordLikeTokens++;
+                wordLikeChars += token.length();
+            }
+        }
+        if (totalChars == 0) {
+            return null; // Nothing legible at probe resolution
+        }
+        float latinRatio = (float) wordLikeChars / totalChars;
+        if (wordLikeTokens >= MIN_LATIN_WORDS && latinRatio >= MIN_LATIN_RATIO) {
+            return Script.LATIN;
+        }
+        if (latinRatio <= MAX_CJK_LATIN_RATIO) {
+            return lastCjkScript; // Null until a CJK scan has been confirmed
+        }
+        return null;
+    }
+
+    /**
+     * Records a scan that a routed recognizer answered, with {@code calls} recognizer calls
+     * including the probe, and returns whether the route should be checked with
+     * {@link #recordValidation}.
+     */
+    public boolean recordRouted(Script routed, String text, int calls) {
+        routedScans++;
+        // Estimated from the route itself; misroutes show up in the validated accuracy instead
+        recognizerCallsSaved += cascadeCost(routed) - calls;
+        return routedScans % VALIDATION_INTERVAL == 0 || looksMisread(text);
+    }
+
+    /** Records a routed recognizer that found no text; the scan then falls back to the cascade. */
+    public void recordMiss() {
+        validatedRoutes++;
+    }
+
+    /** Records a cascade scan; {@code actual} is the script of the text it found. */
+    public void recordCascade(Script actual) {
+        cascadeScans++;
+        updatePrior(actual);
+    }
+
+    /**
+     * Records the outcome of checking a route against all recognizers. {@code extraCalls} is the
+     * number of recognizer calls the check cost.
+     */
+    public void recordValidation(Script routed, Script actual, int extraCalls) {
+        validatedRoutes++;
+        if (routed == actual) {
+            correctRoutes++;
+        }
+        recognizerCallsSaved -= extraCalls;
+        updatePrior(actual);
+    }
+
+    private void updatePrior(Script actual) {
+        if (actual != null && actual != Script.LATIN) {
+            lastCjkScript = actual;
+        }
+    }
+
+    public Script getPreferredCjkScript() {
+        return lastCjkScript;
+    }
+
+    /** Restores the CJK prior, e.g. from a saved pipeline snapshot. */
+    public void setPreferredCjkScript(Script script) {
+        if (script != Script.LATIN) {
+            lastCjkScript = script;
+        }
+    }
+
+    public String statsSummary() {
+        int accuracy = validatedRoutes == 0 ? 0 : Math.round(100f * correctRoutes / validatedRoutes);
+        return "routed=" + routedScans + " validated=" + validatedRoutes + " correct=" + correctRoutes
+                + " accuracy=" + accuracy + "% cascade=" + cascadeScans + " callsSaved=" + recognizerCallsSaved;
+    }
+
+    // Calls the blind cascade would need before reaching a recognizer that reads this script;
+    // the Chinese model also reads Latin text, so Latin stops at the first step.
+    private static int cascadeCost(Script script) {
+        if (script == Script.LATIN) {
+            return 1;
+        }
+        for (int i = 0; i < CASCADE.length; i++) {
+            if (CASCADE[i] == script) {
+                return i + 1;
+            }
+        }
+        return CASCADE.length;
+    }
+
+    private static boolean isWordLike(String token) {
+        if (token.length() < 2) {
+            return false;
+        }
+        boolean hasVowel = false;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (!Character.isLetter(c)) {
+                if (i == token.length() - 1 && (c == ',' || c == '.' || c == ')' || c == ':' || c == ';')) {
+                    continue; // Trailing punctuation in ingredient lists
+                }
+                return false;
+            }
+            if ("aeiouyàáâäèéêëìíîïòóôöùúûü".indexOf(Character.toLowerCase(c)) >= 0) {
+                hasVowel = true;
+            }
+        }
+        return hasVowel;
+    }
+
+    // A recognizer given the wrong script tends to emit punctuation and symbols for what it can't read
+    static boolean looksMisread(String text) {
+        int letters = 0;
+        int visible = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) continue;
+            visible++;
+            if (Character.isLetter(c)) letters++;
+        }
+        return visible == 0 || letters < MIN_LETTER_DENSITY * visible;
+    }
+
+    /**
+     * Decides the script of an image from the outputs of several recognizers run on it. Each
+     * model only emits its own script's characters reliably, so Hangul from the Korean model or
+     * kana from the Japanese model settle the question; ideographs alone mean Chinese.
+     */
+    public static Script judge(Map<Script, String> outputs) {
+        float hangul = scriptShare(outputs.get(Script.KOREAN), Character.UnicodeScript.HANGUL, null);
+        float kana = scriptShare(outputs.get(Script.JAPANESE), Character.UnicodeScript.HIRAGANA,
+                Character.UnicodeScript.KATAKANA);
+        if (hangul >= MIN_SCRIPT_SHARE || kana >= MIN_SCRIPT_SHARE) {
+            return hangul >= kana ? Script.KOREAN : Script.JAPANESE;
+        }
+        for (String text : outputs.values()) {
+            if (scriptShare(text, Character.UnicodeScript.HAN, null) >= MIN_SCRIPT_SHARE) {
+                return Script.CHINESE;
+            }
+        }
+        String latin = outputs.get(Script.LATIN);
+        return latin != null && scriptOf(latin) == Script.LATIN ? Script.LATIN : null;
+    }
+
+    private static float scriptShare(String text, Character.UnicodeScript script,
+                                     Character.UnicodeScript alternative) {
+        if (text == null) {
+            return 0;
+        }
+        int letters = 0;
+        int matching = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (!Character.isLetter(codePoint)) continue;
+            letters++;
+            Character.UnicodeScript of = Character.UnicodeScript.of(codePoint);
+            if (of == script || of == alternative) matching++;
+        }
+        return letters == 0 ? 0 : (float) matching / letters;
+    }
+
+    /** Dominant script of recognized text; Japanese > Korean > Chinese > Latin when mixed. */
+    public static Script scriptOf(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        boolean hasChinese = false;
+        boolean hasJapanese = false;
+        boolean hasKorean = false;
+        int latinCount = 0;
+
+        for (char c : text.toCharArray()) {
+            if (Character.isLetter(c)) {
+                Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
+
+                if (block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS) {
+                    hasChinese = true;
+                } else if (block == Character.UnicodeBlock.HIRAGANA ||
+                          block == Character.UnicodeBlock.KATAKANA ||
+                          block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION) {
+                    hasJapanese = true;
+                } else if (block == Character.UnicodeBlock.HANGUL_SYLLABLES ||
+                          block == Character.UnicodeBlock.HANGUL_JAMO ||
+                          block == Character.UnicodeBlock.HANGUL_COMPATIBILITY_JAMO) {
+                    hasKorean = true;
+                } else if (block == Character.UnicodeBlock.BASIC_LATIN ||
+                          block == Character.UnicodeBlock.LATIN_1_SUPPLEMENT ||
+                          block == Character.UnicodeBlock.LATIN_EXTENDED_A ||
+                          block == Character.UnicodeBlock.LATIN_EXTENDED_B) {
+                    latinCount++;
+                }
+            }
+        }
+
+        if (hasJapanese) {
+            return Script.JAPANESE;
+        } else if (hasKorean) {
+            return Script.KOREAN;
+        } else if (hasChinese) {
+            return Script.CHINESE;
+        } else if (latinCount > 0) {
+            return Script.LATIN;
+        }
+        return null;
+    }
+}
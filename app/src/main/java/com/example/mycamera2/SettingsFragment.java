@@ -9,11 +9,13 @@ import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageButton;
+import android.widget.RadioGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.widget.SwitchCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -33,6 +35,8 @@ public class SettingsFragment extends Fragment {
     private RecyclerView rvAllergies;
     private EditText etNewAllergy;
     private Button btnAddAllergy;
+    private RadioGroup rgCaptureProfile;
+    private SwitchCompat switchTiledOcr;
     private AllergyAdapter adapter;
     private List<String> allergyList; // Current list of allergies displayed and managed
     private final List<String> originalDefaultAllergies = new ArrayList<>(Arrays.asList("almond", "pistachio", "peanut", "fish", "pecan")); // Keep original defaults for logic
@@ -62,12 +66,50 @@ public class SettingsFragment extends Fragment {
         rvAllergies = view.findViewById(R.id.rvAllergies);
         etNewAllergy = view.findViewById(R.id.etNewAllergy);
         btnAddAllergy = view.findViewById(R.id.btnAddAllergy);
+        rgCaptureProfile = view.findViewById(R.id.rgCaptureProfile);
+        switchTiledOcr = view.findViewById(R.id.switchTiledOcr);
 
         rvAllergies.setLayoutManager(new LinearLayoutManager(getContext()));
         adapter = new AllergyAdapter(allergyList, this::removeAllergy);
         rvAllergies.setAdapter(adapter);
 
         btnAddAllergy.setOnClickListener(v -> addNewAllergy());
+
+        rgCaptureProfile.check(profileToButtonId(CaptureProfile.fromPreferences(sharedPreferences)));
+        rgCaptureProfile.setOnCheckedChangeListener((group, checkedId) -> {
+            CaptureProfile profile = buttonIdToProfile(checkedId);
+            if (profile != null) {
+                profile.saveTo(sharedPreferences); // Picked up the next time the camera is bound
+            }
+        });
+
+        switchTiledOcr.setChecked(sharedPreferences.getBoolean(TiledTextRecognizer.KEY_TILED_OCR, false));
+        switchTiledOcr.setOnCheckedChangeListener((buttonView, isChecked) ->
+                sharedPreferences.edit().putBoolean(TiledTextRecognizer.KEY_TILED_OCR, isChecked).apply());
+    }
+
+    private int profileToButtonId(CaptureProfile profile) {
+        switch (profile) {
+            case LATENCY:
+                return R.id.rbProfileLatency;
+            case MAX_DETAIL:
+                return R.id.rbProfileMaxDetail;
+            case BALANCED:
+            default:
+                return R.id.rbProfileBalanced;
+        }
+    }
+
+    @Nullable
+    private CaptureProfile buttonIdToProfile(int buttonId) {
+        if (buttonId == R.id.rbProfileLatency) {
+            return CaptureProfile.LATENCY;
+        } else if (buttonId == R.id.rbProfileBalanced) {
+            return CaptureProfile.BALANCED;
+        } else if (buttonId == R.id.rbProfileMaxDetail) {
+            return CaptureProfile.MAX_DETAIL;
+        }
+        return null;
     }
 
     private void loadAllergies() {
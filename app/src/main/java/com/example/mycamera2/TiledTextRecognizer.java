@@ -0,0 +1,393 @@
+package com.example.mycamera2;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.util.Log;
+
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
+import com.google.mlkit.vision.text.TextRecognizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs OCR over overlapping tiles of a large image instead of one downscaled pass, so dense
+ * small print keeps its resolution. At most {@code maxParallel} tiles are in flight at once.
+ *
+ * Each tile owns a core region: its own area with every overlap split at the midpoint. A
+ * recognized word is kept only from the tile whose core contains the word's centre, so words
+ * seen twice in an overlap are kept once and the partial word a tile edge cut through is
+ * dropped in favour of the neighbour's whole reading. The kept pieces of a line are then
+ * joined across tiles and put back into reading order.
+ *
+ * ML Kit runs the {@code process()} calls of one recognizer client one after another, whatever
+ * executor the client was given, so pass a separate client for each tile that should be in
+ * flight at once; with a single client tiles are processed serially. Callbacks arrive on the
+ * main thread.
+ */
+public class TiledTextRecognizer {
+
+    public static final String KEY_TILED_OCR = "tiled_ocr";
+
+    public interface Callback {
+        void onComplete(Result result);
+
+        void onError(Exception e);
+    }
+
+    public static final class Result {
+        public final String text;
+        /** Paragraph-like groups of lines, used for per-block translation. */
+        public final List<String> blocks;
+        public final int tileCount;
+
+        Result(String text, List<String> blocks, int tileCount) {
+            this.text = text;
+            this.blocks = blocks;
+            this.tileCount = tileCount;
+        }
+    }
+
+    /** Text with a box in full-image coordinates: a recognized element, or a (partial) line. */
+    static final class Piece {
+        String text;
+        int left;
+        int top;
+        int right;
+        int bottom;
+        // Tiles that contributed to a line, so pieces of one tile are never joined to each other
+        long tileMask;
+
+        Piece(String text, int left, int top, int right, int bottom, int tile) {
+            this.text = text;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+            this.tileMask = 1L << (tile & 63);
+        }
+
+        Piece copy() {
+            Piece copy = new Piece(text, left, top, right, bottom, 0);
+            copy.tileMask = tileMask;
+            return copy;
+        }
+
+        int height() {
+            return bottom - top;
+        }
+
+        int centerX() {
+            return (left + right) / 2;
+        }
+
+        int centerY() {
+            return (top + bottom) / 2;
+        }
+    }
+
+    private static final class Tile {
+        final int index;
+        final Rect bounds;
+        // Part of the image this tile is responsible for; cores of all tiles partition the image
+        final int coreLeft;
+        final int coreTop;
+        final int coreRight;
+        final int coreBottom;
+
+        Tile(int index, Rect bounds, int coreLeft, int coreTop, int coreRight, int coreBottom) {
+            this.index = index;
+            this.bounds = bounds;
+            this.coreLeft = coreLeft;
+            this.coreTop = coreTop;
+            this.coreRight = coreRight;
+            this.coreBottom = coreBottom;
+        }
+    }
+
+    private final int tileSize;
+    private final int overlap;
+    private final int maxParallel;
+
+    public TiledTextRecognizer(int tileSize, int overlap, int maxParallel) {
+        if (overlap >= tileSize || maxParallel < 1) {
+            throw new IllegalArgumentException("overlap must be < tileSize and maxParallel >= 1");
+        }
+        this.tileSize = tileSize;
+        this.overlap = overlap;
+        this.maxParallel = maxParallel;
+    }
+
+    /** Tiling only pays off when the image is clearly larger than one tile. */
+    public static boolean shouldTile(int width, int height, int tileSize) {
+        return Math.max(width, height) > tileSize * 3 / 2;
+    }
+
+    /** Runs at most {@code min(maxParallel, recognizers.size())} tiles at once, one per client. */
+    public void recognize(Bitmap bitmap, List<TextRecognizer> recognizers, Callback callback) {
+        if (recognizers.isEmpty()) {
+            throw new IllegalArgumentException("At least one recognizer is needed");
+        }
+        List<Tile> tiles = layoutTiles(bitmap.getWidth(), bitmap.getHeight());
+        new Job(bitmap, recognizers, tiles, callback).start();
+    }
+
+    private List<Tile> layoutTiles(int width, int height) {
+        int[] xs = tileStarts(width);
+        int[] ys = tileStarts(height);
+        List<Tile> tiles = new ArrayList<>(xs.length * ys.length);
+        for (int row = 0; row < ys.length; row++) {
+            for (int column = 0; column < xs.length; column++) {
+                int x = xs[column];
+                int y = ys[row];
+                tiles.add(new Tile(tiles.size(),
+                        new Rect(x, y, Math.min(x + tileSize, width), Math.min(y + tileSize, height)),
+                        coreStart(xs, column), coreStart(ys, row),
+                        coreEnd(xs, column, width), coreEnd(ys, row, height)));
+            }
+        }
+        return tiles;
+    }
+
+    // Evenly spaced tile origins along one axis, with at least `overlap` pixels shared between neighbours
+    private int[] tileStarts(int length) {
+        if (length <= tileSize) {
+            return new int[]{0};
+        }
+        int stride = tileSize - overlap;
+        int count = (int) Math.ceil((double) (length - overlap) / stride);
+        int[] starts = new int[count];
+        float step = (float) (length - tileSize) / (count - 1);
+        for (int i = 0; i < count; i++) {
+            starts[i] = Math.round(i * step);
+        }
+        return starts;
+    }
+
+    // Midpoint of the overlap with the previous tile along this axis
+    private int coreStart(int[] starts, int i) {
+        return i == 0 ? 0 : (starts[i] + starts[i - 1] + tileSize) / 2;
+    }
+
+    // Midpoint of the overlap with the next tile along this axis
+    private int coreEnd(int[] starts, int i, int length) {
+        return i == starts.length - 1 ? length : (starts[i + 1] + starts[i] + tileSize) / 2;
+    }
+
+    private final class Job {
+        private final Bitmap bitmap;
+        // Clients not currently processing a tile
+        private final ArrayDeque<TextRecognizer> idle;
+        private final List<Tile> tiles;
+        private final Callback callback;
+        private final List<Piece> fragments = new ArrayList<>();
+        private int nextTile;
+        private int finishedTiles;
+        private int failedTiles;
+        private Exception lastError;
+
+        Job(Bitmap bitmap, List<TextRecognizer> recognizers, List<Tile> tiles, Callback callback) {
+            this.bitmap = bitmap;
+            this.idle = new ArrayDeque<>(recognizers.subList(0, Math.min(maxParallel, recognizers.size())));
+            this.tiles = tiles;
+            this.callback = callback;
+        }
+
+        void start() {
+            int initial = Math.min(idle.size(), tiles.size());
+            for (int i = 0; i < initial; i++) {
+                dispatchNext();
+            }
+        }
+
+        private void dispatchNext() {
+            if (nextTile >= tiles.size() || idle.isEmpty()) {
+                return;
+            }
+            TextRecognizer recognizer = idle.poll();
+            Tile tile = tiles.get(nextTile++);
+            Rect bounds = tile.bounds;
+            Bitmap crop = Bitmap.createBitmap(bitmap, bounds.left, bounds.top, bounds.width(), bounds.height());
+            recognizer.process(InputImage.fromBitmap(crop, 0))
+                    .addOnSuccessListener(visionText -> collectFragments(visionText, tile))
+                    .addOnFailureListener(e -> {
+                        Log.w("TiledTextRecognizer", "Tile " + bounds + " failed", e);
+                        failedTiles++;
+                        lastError = e;
+                    })
+                    .addOnCompleteListener(task -> {
+                        idle.add(recognizer);
+                        finishedTiles++;
+                        if (finishedTiles == tiles.size()) {
+                            finish();
+                        } else {
+                            dispatchNext();
+                        }
+                    });
+        }
+
+        private void collectFragments(Text visionText, Tile tile) {
+            for (Text.TextBlock block : visionText.getTextBlocks()) {
+                for (Text.Line line : block.getLines()) {
+                    List<Piece> elements = new ArrayList<>();
+                    for (Text.Element element : line.getElements()) {
+                        Rect box = element.getBoundingBox();
+                        if (box == null) continue;
+                        box.offset(tile.bounds.left, tile.bounds.top);
+                        elements.add(new Piece(element.getText(), box.left, box.top, box.right, box.bottom,
+                                tile.index));
+                    }
+                    Piece owned = ownedPart(line.getText(), elements, tile.coreLeft, tile.coreTop,
+                            tile.coreRight, tile.coreBottom);
+                    if (owned != null) {
+                        fragments.add(owned);
+                    }
+                }
+            }
+        }
+
+        private void finish() {
+            if (failedTiles == tiles.size()) {
+                callback.onError(lastError);
+                return;
+            }
+            List<Piece> lines = joinAcrossTiles(fragments);
+            sortIntoReadingOrder(lines);
+            callback.onComplete(buildResult(lines, tiles.size()));
+        }
+    }
+
+    /**
+     * The part of one tile's line that the tile owns: the elements whose centre lies in its core.
+     * Returns the whole line text when every element is owned, null when none is.
+     */
+    static Piece ownedPart(String lineText, List<Piece> elements, int coreLeft, int coreTop,
+                           int coreRight, int coreBottom) {
+        Piece owned = null;
+        int ownedCount = 0;
+        for (Piece element : elements) {
+            int x = element.centerX();
+            int y = element.centerY();
+            if (x < coreLeft || x >= coreRight || y < coreTop || y >= coreBottom) continue;
+            ownedCount++;
+            if (owned == null) {
+                owned = element.copy();
+            } else {
+                append(owned, element);
+            }
+        }
+        if (owned != null && ownedCount == elements.size()) {
+            owned.text = lineText; // Keeps the recognizer's own spacing
+        }
+        return owned;
+    }
+
+    /**
+     * Joins line fragments from different tiles that continue each other on the same row.
+     * Fragments of one tile are separate lines as far as the recognizer is concerned and are
+     * never joined to each other.
+     */
+    static List<Piece> joinAcrossTiles(List<Piece> fragments) {
+        List<Piece> sorted = new ArrayList<>(fragments);
+        Collections.sort(sorted, (a, b) -> Integer.compare(a.left, b.left));
+        List<Piece> lines = new ArrayList<>();
+        for (Piece fragment : sorted) {
+            Piece match = null;
+            for (Piece line : lines) {
+                if ((line.tileMask & fragment.tileMask) == 0 && sameRow(line, fragment)
+                        && continues(line, fragment)) {
+                    match = line;
+                    break;
+                }
+            }
+            if (match == null) {
+                lines.add(fragment.copy());
+            } else {
+                append(match, fragment);
+            }
+        }
+        return lines;
+    }
+
+    private static void append(Piece line, Piece next) {
+        line.text = joinWords(line.text, next.text);
+        line.left = Math.min(line.left, next.left);
+        line.top = Math.min(line.top, next.top);
+        line.right = Math.max(line.right, next.right);
+        line.bottom = Math.max(line.bottom, next.bottom);
+        line.tileMask |= next.tileMask;
+    }
+
+    // CJK text is written without spaces between words
+    private static String joinWords(String left, String right) {
+        if (left.isEmpty() || right.isEmpty()) {
+            return left + right;
+        }
+        boolean noSpace = isUnspaced(left.codePointBefore(left.length())) && isUnspaced(right.codePointAt(0));
+        return noSpace ? left + right : left + ' ' + right;
+    }
+
+    private static boolean isUnspaced(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    private static boolean sameRow(Piece a, Piece b) {
+        int overlap = Math.min(a.bottom, b.bottom) - Math.max(a.top, b.top);
+        return overlap > 0.6f * Math.min(a.height(), b.height());
+    }
+
+    // The next fragment starts roughly where the line ends: no further than a wide word gap away
+    private static boolean continues(Piece line, Piece next) {
+        int gap = next.left - line.right;
+        int height = Math.max(line.height(), next.height());
+        return gap >= -height && gap <= 2 * height;
+    }
+
+    // Top-to-bottom rows, left-to-right within a row
+    private static void sortIntoReadingOrder(List<Piece> lines) {
+        Collections.sort(lines, (a, b) -> Integer.compare(a.top, b.top));
+        List<Piece> ordered = new ArrayList<>(lines.size());
+        int i = 0;
+        while (i < lines.size()) {
+            Piece first = lines.get(i);
+            int rowEnd = i + 1;
+            while (rowEnd < lines.size() && lines.get(rowEnd).top < first.centerY()) {
+                rowEnd++;
+            }
+            List<Piece> row = new ArrayList<>(lines.subList(i, rowEnd));
+            Collections.sort(row, (a, b) -> Integer.compare(a.left, b.left));
+            ordered.addAll(row);
+            i = rowEnd;
+        }
+        lines.clear();
+        lines.addAll(ordered);
+    }
+
+    // A vertical gap larger than one line height starts a new block
+    private static Result buildResult(List<Piece> lines, int tileCount) {
+        StringBuilder text = new StringBuilder();
+        List<String> blocks = new ArrayList<>();
+        StringBuilder block = new StringBuilder();
+        Piece previous = null;
+        for (Piece line : lines) {
+            if (previous != null && line.top - previous.bottom > previous.height()) {
+                blocks.add(block.toString());
+                block.setLength(0);
+            }
+            if (block.length() > 0) block.append('\n');
+            block.append(line.text);
+            if (text.length() > 0) text.append('\n');
+            text.append(line.text);
+            previous = line;
+        }
+        if (block.length() > 0) {
+            blocks.add(block.toString());
+        }
+        return new Result(text.toString(), blocks, tileCount);
+    }
+}
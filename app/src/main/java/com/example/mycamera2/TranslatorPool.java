@@ -0,0 +1,168 @@
+package com.example.mycamera2;
+
+import android.content.ComponentCallbacks2;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.mlkit.nl.translate.Translation;
+import com.google.mlkit.nl.translate.Translator;
+import com.google.mlkit.nl.translate.TranslatorOptions;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hands out ML Kit translators by language key with reference counting. A translator keeps its
+ * model in native memory, so one nobody holds is closed after {@link #IDLE_TIMEOUT_MS}, or right
+ * away on memory pressure, and recreated on the next {@link #acquire}. The model files stay
+ * downloaded, so a reload only costs loading them back into memory.
+ *
+ * Main thread only.
+ */
+public final class TranslatorPool {
+
+    private static final String TAG = "TranslatorPool";
+    static final long IDLE_TIMEOUT_MS = 60_000;
+    // Translated once when a model is first used, so its load is timed without a real block in it
+    private static final String LOAD_PROBE = "a";
+
+    private static final class Entry {
+        final Translator translator;
+        int refCount;
+        boolean used;
+        Runnable evictTask;
+
+        Entry(Translator translator) {
+            this.translator = translator;
+        }
+    }
+
+    private final Map<String, TranslatorOptions> options = new LinkedHashMap<>();
+    private final Map<String, Entry> resident = new HashMap<>();
+    // Keys that have translated before, so their next load counts as a reload; acquiring only to
+    // download a model does not load it and is not counted
+    private final Set<String> everLoaded = new HashSet<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    public void register(String key, TranslatorOptions translatorOptions) {
+        options.put(key, translatorOptions);
+    }
+
+    public boolean has(String key) {
+        return options.containsKey(key);
+    }
+
+    public boolean isEmpty() {
+        return options.isEmpty();
+    }
+
+    /** Returns the translator for {@code key}, loading it if needed; pair every call with {@link #release}. */
+    @Nullable
+    public Translator acquire(String key) {
+        Entry entry = resident.get(key);
+        if (entry == null) {
+            TranslatorOptions translatorOptions = options.get(key);
+            if (translatorOptions == null) {
+                return null;
+            }
+            entry = new Entry(Translation.getClient(translatorOptions));
+            resident.put(key, entry);
+            logResident("created " + key);
+        }
+        if (entry.evictTask != null) {
+            handler.removeCallbacks(entry.evictTask);
+            entry.evictTask = null;
+        }
+        entry.refCount++;
+        return entry.translator;
+    }
+
+    public void release(String key) {
+        Entry entry = resident.get(key);
+        if (entry == null || entry.refCount == 0) {
+            Log.w(TAG, "release without acquire for " + key);
+            return;
+        }
+        entry.refCount--;
+        if (entry.refCount == 0) {
+            entry.evictTask = () -> evict(key);
+            handler.postDelayed(entry.evictTask, IDLE_TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * Acquires, translates and releases. ML Kit brings the model into memory on the first
+     * translation, so the first use of a translator also translates {@link #LOAD_PROBE} and times
+     * that, from this call, as the load; the caller's text is translated as usual alongside it.
+     */
+    @Nullable
+    public Task<String> translate(String key, String text) {
+        Translator translator = acquire(key);
+        if (translator == null) {
+            return null;
+        }
+        Entry entry = resident.get(key);
+        if (!entry.used) {
+            entry.used = true;
+            String metric = everLoaded.add(key) ? "translator_first_load" : "translator_reload";
+            long loadStart = LatencyLog.now();
+            translator.translate(LOAD_PROBE).addOnSuccessListener(probe ->
+                    LatencyLog.report(metric, loadStart, "language=" + key + " resident=" + resident.size()));
+        }
+        return translator.translate(text).addOnCompleteListener(task -> release(key));
+    }
+
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            evictIdle("trim level " + level);
+        }
+    }
+
+    public void onLowMemory() {
+        evictIdle("low memory");
+    }
+
+    public void closeAll() {
+        for (Entry entry : resident.values()) {
+            if (entry.evictTask != null) {
+                handler.removeCallbacks(entry.evictTask);
+            }
+            entry.translator.close();
+        }
+        resident.clear();
+    }
+
+    private void evictIdle(String reason) {
+        int before = resident.size();
+        for (String key : resident.keySet().toArray(new String[0])) {
+            evict(key);
+        }
+        if (resident.size() != before) {
+            logResident("evicted idle translators on " + reason);
+        }
+    }
+
+    private void evict(String key) {
+        Entry entry = resident.get(key);
+        if (entry == null || entry.refCount > 0) {
+            return;
+        }
+        if (entry.evictTask != null) {
+            handler.removeCallbacks(entry.evictTask);
+        }
+        entry.translator.close();
+        resident.remove(key);
+        logResident("evicted " + key);
+    }
+
+    private void logResident(String event) {
+        Log.i(TAG, event + ": resident=" + resident.size() + " " + resident.keySet());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.mycamera2;
+
+import com.example.mycamera2.build.LexiconCompiler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class AllergenLexiconTest {
+
+    private final Locale defaultLocale = Locale.getDefault();
+    private File compiled;
+    private AllergenLexicon lexicon;
+
+    @Before
+    public void setUp() throws IOException {
+        compiled = File.createTempFile("allergens", ".lex");
+        LexiconCompiler.compile(new File("src/main/lexicon/allergens.tsv"), compiled);
+        lexicon = new AllergenLexicon(ByteBuffer.wrap(Files.readAllBytes(compiled.toPath())));
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+        //noinspection ResultOfMethodCallIgnored
+        compiled.delete();
+    }
+
+    @Test
+    public void compilerAndReader_agreeOnFormat() {
+        assertEquals(LexiconCompiler.MAGIC, AllergenLexicon.MAGIC);
+        assertEquals(LexiconCompiler.VERSION, AllergenLexicon.VERSION);
+    }
+
+    @Test
+    public void lookup_mapsSynonymsToAllergen() {
+        int peanut = lexicon.lookup("peanut");
+        assertTrue(peanut >= 0);
+        assertEquals("peanut", lexicon.getAllergenName(peanut));
+        assertEquals(peanut, lexicon.lookup("Arachis Oil"));
+        assertEquals(peanut, lexicon.lookup("花生油"));
+        assertEquals(-1, lexicon.lookup("pea"));
+    }
+
+    @Test
+    public void lookup_ignoresTurkishLocale() {
+        Locale.setDefault(new Locale("tr", "TR"));
+        int milk = lexicon.lookup("MILK");
+        assertTrue(milk >= 0);
+        assertEquals("milk", lexicon.getAllergenName(milk));
+    }
+
+    @Test
+    public void findMatches_reportsOffsetsIntoOriginalText() {
+        Locale.setDefault(new Locale("tr", "TR"));
+        String text = "İÇİNDEKİLER: SUGAR, ARACHIS OIL, MILK. 含有花生油";
+        List<String> found = new ArrayList<>();
+        lexicon.findMatches(text, (start, end, allergenId) ->
+                found.add(text.substring(start, end) + "=" + lexicon.getAllergenName(allergenId)));
+        assertEquals(3, found.size());
+        assertEquals("ARACHIS OIL=peanut", found.get(0));
+        assertEquals("MILK=milk", found.get(1));
+        assertEquals("花生油=peanut", found.get(2));
+    }
+
+    @Test
+    public void findMatches_requiresWholeLatinWords() {
+        List<Integer> starts = new ArrayList<>();
+        lexicon.findMatches("peanuts, unpeanut, peanutty", (start, end, allergenId) -> starts.add(start));
+        assertEquals(1, starts.size());
+        assertEquals(0, (int) starts.get(0));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.mycamera2;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class OcrConsensusTest {
+
+    private static final List<String> TRUTH = Arrays.asList(
+            "INGREDIENTS: WHEAT FLOUR, SUGAR, PEANUT OIL,",
+            "SKIMMED MILK POWDER, SALT, ALMOND EXTRACT.",
+            "MAY CONTAIN TRACES OF PISTACHIO AND PECAN.");
+
+    // Replayable burst: low-resolution readings of the same label, each garbling a word or two and
+    // none of them correct on its own, so the fused result can only be right if voting wins
+    private static final List<List<String>> BURST = Arrays.asList(
+            Arrays.asList(
+                    "INGREDIENTS: WHEAT FL0UR, SUGAR, PEANUT OIL,",
+                    "SKIMMED MILK POWDER, SALT, ALMOND EXTRACT.",
+                    "MAY CONTAIN TRACES OF PISTACHI0 AND PECAN."),
+            Arrays.asList(
+                    "INGREDIENTS: WHEAT FLOUR, SUGAR, PEANUI OIL,",
+                    "SKIMMED MlLK POWDER, SALT, ALMOND EXTRACT.",
+                    "MAY CONTAIN TRACES OF PISTACHIO AND PECAN."),
+            Arrays.asList(
+                    "lNGREDIENTS: WHEAT FLOUR, SUGAR, PEANUT OIL,",
+                    "SKIMMED MILK POWDER, SALT, ALMOND",
+                    "MAY CONTAIN TRACES OF PISTACHIO AND PECAN."),
+            Arrays.asList(
+                    "INGREDIENTS: WHEAT FLOUR, SUGAR, PEANUT OIL,",
+                    "SKIMMED MILK POWDER, SALT, ALM0ND EXTRACT.",
+                    "MAY CONTAlN TRACES OF PISTACHIO AND PEGAN.",
+                    "|"));
+
+    // Device recordings (see OcrRecording), one directory per label holding burst.txt and
+    // capture.txt of that label plus a hand-checked truth.txt with one line per label line
+    private static final File RECORDINGS = new File("src/test/resources/ocr_recordings");
+
+    @Test
+    public void fusedBurst_beatsEverySingleFrame() {
+        OcrConsensus consensus = new OcrConsensus();
+        float bestSingle = 0;
+        OcrConsensus.Result result = null;
+        for (List<String> frame : BURST) {
+            bestSingle = Math.max(bestSingle, tokenAccuracy(frame));
+            result = consensus.addFrame(frame);
+        }
+        float fused = tokenAccuracy(result.getLineTexts());
+        assertTrue(bestSingle < 1f);
+        assertTrue(fused > bestSingle);
+        assertEquals(TRUTH, result.getLineTexts());
+    }
+
+    // Replays recorded bursts and full-resolution captures of the same labels and prints, per path,
+    // end-to-end latency (scan start to recognized text, as measured on device), summed recognizer
+    // time and token accuracy. Skipped until recordings have been copied into RECORDINGS.
+    @Test
+    public void burstVersusCapture_recordedReport() throws IOException {
+        File[] labels = RECORDINGS.listFiles(File::isDirectory);
+        assumeTrue("No device recordings in " + RECORDINGS, labels != null && labels.length > 0);
+        for (File label : labels) {
+            List<String> truth = Files.readAllLines(new File(label, "truth.txt").toPath(), StandardCharsets.UTF_8);
+            OcrRecording burst = readRecording(new File(label, "burst.txt"));
+            OcrRecording capture = readRecording(new File(label, "capture.txt"));
+            assertEquals(OcrRecording.BURST, burst.path);
+            assertEquals(OcrRecording.CAPTURE, capture.path);
+            assertTrue(label.getName() + ": unfinished recording", burst.getEndToEndMs() >= 0 && capture.getEndToEndMs() >= 0);
+
+            OcrConsensus consensus = new OcrConsensus();
+            OcrConsensus.Result fused = null;
+            for (OcrRecording.Frame frame : burst.getFrames()) {
+                fused = consensus.addFrame(frame.lines);
+            }
+            assertNotNull(label.getName() + ": burst without frames", fused);
+            // The replay has to reproduce what the device fused, otherwise its accuracy says nothing
+            assertEquals(label.getName(), burst.getResult(), fused.getLineTexts());
+
+            System.out.printf("%s burst:   frames=%d endToEnd=%d ms recognizer=%d ms accuracy=%.3f%n",
+                    label.getName(), burst.getFrames().size(), burst.getEndToEndMs(), burst.getRecognizerMs(),
+                    tokenAccuracy(truth, fused.getLineTexts()));
+            System.out.printf("%s capture: frames=%d endToEnd=%d ms recognizer=%d ms accuracy=%.3f%n",
+                    label.getName(), capture.getFrames().size(), capture.getEndToEndMs(), capture.getRecognizerMs(),
+                    tokenAccuracy(truth, capture.getResult()));
+        }
+    }
+
+    @Test
+    public void recording_roundTrips() throws IOException {
+        OcrRecording recording = new OcrRecording(OcrRecording.BURST);
+        recording.addFrame(180, 420, BURST.get(0));
+        recording.addFrame(175, 610, BURST.get(1));
+        recording.finish(640, TRUTH);
+        StringWriter out = new StringWriter();
+        recording.writeTo(out);
+
+        OcrRecording read = OcrRecording.read(new BufferedReader(new StringReader(out.toString())));
+        assertEquals(OcrRecording.BURST, read.path);
+        assertEquals(640, read.getEndToEndMs());
+        assertEquals(355, read.getRecognizerMs());
+        assertEquals(2, read.getFrames().size());
+        assertEquals(610, read.getFrames().get(1).doneAtMs);
+        assertEquals(BURST.get(1), read.getFrames().get(1).lines);
+        assertEquals(TRUTH, read.getResult());
+    }
+
+    @Test
+    public void streamingResult_improvesAsFramesArrive() {
+        OcrConsensus consensus = new OcrConsensus();
+        float first = tokenAccuracy(consensus.addFrame(BURST.get(0)).getLineTexts());
+        consensus.addFrame(BURST.get(1));
+        float third = tokenAccuracy(consensus.addFrame(BURST.get(2)).getLineTexts());
+        assertTrue(third > first);
+    }
+
+    @Test
+    public void confidence_reflectsAgreement() {
+        OcrConsensus consensus = new OcrConsensus();
+        OcrConsensus.Result result = null;
+        for (List<String> frame : BURST) {
+            result = consensus.addFrame(frame);
+        }
+        OcrConsensus.Line first = result.lines.get(0);
+        assertEquals("INGREDIENTS:", first.tokens.get(0).text);
+        assertEquals(0.75f, first.tokens.get(0).confidence, 0.001f); // Misread in one of four frames
+        assertEquals(1f, first.tokens.get(1).confidence, 0.001f); // WHEAT, read the same in every frame
+    }
+
+    @Test
+    public void minorityNoiseLine_isDropped() {
+        OcrConsensus consensus = new OcrConsensus();
+        OcrConsensus.Result result = null;
+        for (List<String> frame : BURST) {
+            result = consensus.addFrame(frame);
+        }
+        assertEquals(3, result.lines.size());
+    }
+
+    @Test
+    public void cjkText_isVotedPerCharacter() {
+        OcrConsensus consensus = new OcrConsensus();
+        consensus.addFrame(Arrays.asList("配料：小麦粉，花生油"));
+        consensus.addFrame(Arrays.asList("配料：小麦粉，花土油"));
+        OcrConsensus.Result result = consensus.addFrame(Arrays.asList("配料：小麦粉，花生油"));
+        assertEquals("配料：小麦粉，花生油", result.getText());
+    }
+
+    @Test
+    public void align_mapsDroppedWordToGap() {
+        String[] aligned = OcrConsensus.align(Arrays.asList("SALT,", "ALMOND", "EXTRACT."),
+                Arrays.asList("SALT,", "ALMOND"));
+        assertEquals("SALT,", aligned[0]);
+        assertEquals("ALMOND", aligned[1]);
+        assertNull(aligned[2]);
+    }
+
+    private static OcrRecording readRecording(File file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return OcrRecording.read(in);
+        }
+    }
+
+    private static float tokenAccuracy(List<String> lines) {
+        return tokenAccuracy(TRUTH, lines);
+    }
+
+    // Share of ground-truth tokens read correctly at their position
+    private static float tokenAccuracy(List<String> truth, List<String> lines) {
+        int correct = 0;
+        int total = 0;
+        for (int i = 0; i < truth.size(); i++) {
+            List<String> expected = OcrConsensus.tokenize(truth.get(i));
+            List<String> actual = i < lines.size() ? OcrConsensus.tokenize(lines.get(i)) : Arrays.<String>asList();
+            String[] aligned = OcrConsensus.align(expected, actual);
+            for (int j = 0; j < expected.size(); j++) {
+                total++;
+                if (expected.get(j).equals(aligned[j])) correct++;
+            }
+        }
+        return (float) correct / total;
+    }
+}
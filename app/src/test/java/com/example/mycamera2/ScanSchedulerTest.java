@@ -0,0 +1,129 @@
+package com.example.mycamera2;
+
+import android.os.PowerManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ScanSchedulerTest {
+
+    private static class FakePowerSource implements ScanScheduler.PowerSource {
+        int thermalStatus = PowerManager.THERMAL_STATUS_NONE;
+        int batteryPercent = 100;
+        boolean charging;
+
+        @Override
+        public int getThermalStatus() {
+            return thermalStatus;
+        }
+
+        @Override
+        public int getBatteryPercent() {
+            return batteryPercent;
+        }
+
+        @Override
+        public boolean isCharging() {
+            return charging;
+        }
+    }
+
+    private FakePowerSource power;
+    private ScanScheduler scheduler;
+    private final List<String> transitions = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        power = new FakePowerSource();
+        scheduler = new ScanScheduler(power);
+        scheduler.setListener((from, to, reason) -> transitions.add(from + "->" + to));
+    }
+
+    @Test
+    public void coolAndCharged_staysNormal() {
+        assertEquals(ScanScheduler.Level.NORMAL, scheduler.evaluate(0));
+        assertTrue(transitions.isEmpty());
+    }
+
+    @Test
+    public void thermalStatus_mapsToLevels() {
+        power.thermalStatus = PowerManager.THERMAL_STATUS_MODERATE;
+        assertEquals(ScanScheduler.Level.REDUCED, scheduler.evaluate(0));
+        power.thermalStatus = PowerManager.THERMAL_STATUS_SEVERE;
+        assertEquals(ScanScheduler.Level.CONSERVE, scheduler.evaluate(1));
+        power.thermalStatus = PowerManager.THERMAL_STATUS_EMERGENCY;
+        assertEquals(ScanScheduler.Level.CRITICAL, scheduler.evaluate(2));
+        power.thermalStatus = PowerManager.THERMAL_STATUS_LIGHT;
+        assertEquals(ScanScheduler.Level.NORMAL, scheduler.evaluate(3));
+        assertEquals(4, transitions.size());
+        assertEquals("CRITICAL->NORMAL", transitions.get(3));
+    }
+
+    @Test
+    public void lowBattery_degradesUnlessCharging() {
+        power.batteryPercent = 12;
+        assertEquals(ScanScheduler.Level.CONSERVE, scheduler.evaluate(0));
+        power.charging = true;
+        assertEquals(ScanScheduler.Level.NORMAL, scheduler.evaluate(1));
+    }
+
+    @Test
+    public void worstOfThermalAndBattery_wins() {
+        power.thermalStatus = PowerManager.THERMAL_STATUS_MODERATE;
+        power.batteryPercent = 4;
+        assertEquals(ScanScheduler.Level.CRITICAL, scheduler.evaluate(0));
+    }
+
+    @Test
+    public void batteryRecovery_usesHysteresis() {
+        power.batteryPercent = ScanScheduler.BATTERY_LOW;
+        assertEquals(ScanScheduler.Level.REDUCED, scheduler.evaluate(0));
+        power.batteryPercent = ScanScheduler.BATTERY_LOW + 1;
+        assertEquals(ScanScheduler.Level.REDUCED, scheduler.evaluate(1));
+        power.batteryPercent = ScanScheduler.BATTERY_LOW + ScanScheduler.BATTERY_HYSTERESIS + 1;
+        assertEquals(ScanScheduler.Level.NORMAL, scheduler.evaluate(2));
+        assertEquals(2, transitions.size());
+    }
+
+    @Test
+    public void thermalRecovery_ignoresBatteryHysteresis() {
+        power.batteryPercent = ScanScheduler.BATTERY_LOW + 1;
+        power.thermalStatus = PowerManager.THERMAL_STATUS_SEVERE;
+        assertEquals(ScanScheduler.Level.CONSERVE, scheduler.evaluate(0));
+        power.thermalStatus = PowerManager.THERMAL_STATUS_NONE;
+        assertEquals(ScanScheduler.Level.NORMAL, scheduler.evaluate(1));
+    }
+
+    @Test
+    public void criticalLevel_defersTranslationAndSkipsSecondaryRecognizers() {
+        power.thermalStatus = PowerManager.THERMAL_STATUS_CRITICAL;
+        ScanScheduler.Level level = scheduler.evaluate(0);
+        assertTrue(level.deferTranslation);
+        assertFalse(level.allowSecondaryRecognizers);
+        assertTrue(level.maxOcrDimension > 0);
+    }
+
+    @Test
+    public void shouldAnalyzeFrame_throttlesToLevelInterval() {
+        power.thermalStatus = PowerManager.THERMAL_STATUS_SEVERE;
+        long interval = ScanScheduler.Level.CONSERVE.minFrameIntervalMs;
+        assertTrue(scheduler.shouldAnalyzeFrame(0));
+        assertFalse(scheduler.shouldAnalyzeFrame(interval - 1));
+        assertTrue(scheduler.shouldAnalyzeFrame(interval));
+    }
+
+    @Test
+    public void shouldAnalyzeFrame_reevaluatesPeriodically() {
+        assertTrue(scheduler.shouldAnalyzeFrame(0));
+        power.thermalStatus = PowerManager.THERMAL_STATUS_SEVERE;
+        scheduler.shouldAnalyzeFrame(ScanScheduler.REEVALUATE_INTERVAL_MS - 1);
+        assertEquals(ScanScheduler.Level.NORMAL, scheduler.getLevel());
+        scheduler.shouldAnalyzeFrame(ScanScheduler.REEVALUATE_INTERVAL_MS);
+        assertEquals(ScanScheduler.Level.CONSERVE, scheduler.getLevel());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.mycamera2;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ScriptRouterTest {
+
+    private static final String LATIN_PROBE = "INGREDIENTS: WHEAT FLOUR, SUGAR, PEANUT OIL";
+    private static final String CJK_PROBE = "1 F3 ] ;L T# 0";
+
+    @Test
+    public void latinProbe_routesToLatin() {
+        assertEquals(ScriptRouter.Script.LATIN, new ScriptRouter().route(LATIN_PROBE));
+    }
+
+    @Test
+    public void cjkProbe_isUnsureUntilCascadeConfirmsScript() {
+        ScriptRouter router = new ScriptRouter();
+        assertNull(router.route(CJK_PROBE));
+        router.recordCascade(ScriptRouter.Script.JAPANESE);
+        assertEquals(ScriptRouter.Script.JAPANESE, router.route(CJK_PROBE));
+    }
+
+    @Test
+    public void routedOutput_doesNotUpdatePriorOrAccuracy() {
+        ScriptRouter router = new ScriptRouter();
+        router.recordCascade(ScriptRouter.Script.CHINESE);
+        router.recordRouted(ScriptRouter.Script.CHINESE, "配料：小麦粉", 2);
+        assertEquals(ScriptRouter.Script.CHINESE, router.getPreferredCjkScript());
+        assertTrue(router.statsSummary().contains("validated=0"));
+    }
+
+    @Test
+    public void validation_correctsWrongPrior() {
+        ScriptRouter router = new ScriptRouter();
+        router.recordCascade(ScriptRouter.Script.CHINESE);
+        router.recordValidation(ScriptRouter.Script.CHINESE, ScriptRouter.Script.JAPANESE, 4);
+        assertEquals(ScriptRouter.Script.JAPANESE, router.getPreferredCjkScript());
+        assertTrue(router.statsSummary().contains("accuracy=0%"));
+    }
+
+    @Test
+    public void recordRouted_asksForValidationPeriodicallyAndWhenMisread() {
+        ScriptRouter router = new ScriptRouter();
+        for (int i = 1; i < ScriptRouter.VALIDATION_INTERVAL; i++) {
+            assertFalse(router.recordRouted(ScriptRouter.Script.LATIN, LATIN_PROBE, 1));
+        }
+        assertTrue(router.recordRouted(ScriptRouter.Script.LATIN, LATIN_PROBE, 1));
+        assertTrue(router.recordRouted(ScriptRouter.Script.CHINESE, "・ー 、。 「」 小", 2));
+    }
+
+    @Test
+    public void judge_prefersKanaFromJapaneseModel() {
+        Map<ScriptRouter.Script, String> outputs = new EnumMap<>(ScriptRouter.Script.class);
+        outputs.put(ScriptRouter.Script.CHINESE, "原材料名 小麦粉 砂糖");
+        outputs.put(ScriptRouter.Script.JAPANESE, "原材料名：小麦粉、砂糖、ピーナッツ");
+        outputs.put(ScriptRouter.Script.KOREAN, "");
+        outputs.put(ScriptRouter.Script.LATIN, "");
+        assertEquals(ScriptRouter.Script.JAPANESE, ScriptRouter.judge(outputs));
+    }
+
+    @Test
+    public void judge_ideographsAloneMeanChinese() {
+        Map<ScriptRouter.Script, String> outputs = new EnumMap<>(ScriptRouter.Script.class);
+        outputs.put(ScriptRouter.Script.CHINESE, "配料：小麦粉，花生油");
+        outputs.put(ScriptRouter.Script.JAPANESE, "配料：小麦粉，花生油");
+        outputs.put(ScriptRouter.Script.KOREAN, null);
+        outputs.put(ScriptRouter.Script.LATIN, "1 F3");
+        assertEquals(ScriptRouter.Script.CHINESE, ScriptRouter.judge(outputs));
+    }
+}
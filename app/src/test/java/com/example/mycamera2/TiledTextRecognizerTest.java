@@ -0,0 +1,100 @@
+package com.example.mycamera2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TiledTextRecognizerTest {
+
+    // Two 1280 px tiles overlapping by 160 px; the overlap is split at x = 1200
+    private static final int TILE_1_START = 1120;
+    private static final int TILE_0_END = 1280;
+    private static final int SPLIT = (TILE_1_START + TILE_0_END) / 2;
+
+    private static final int CHAR_WIDTH = 20;
+    private static final int LINE_HEIGHT = 24;
+
+    @Test
+    public void wordsCutByTileEdges_areReadOnceFromTheTileThatOwnsThem() {
+        String line = "SUGAR, WHEAT FLOUR, PEANUT OIL, MILK";
+        int x = 700;
+        List<TiledTextRecognizer.Piece> fragments = new ArrayList<>();
+        addOwned(fragments, line, x, 100, 0, TILE_0_END, 0, 0, SPLIT);
+        addOwned(fragments, line, x, 100, TILE_1_START, 2400, 1, SPLIT, 2400);
+
+        List<TiledTextRecognizer.Piece> lines = TiledTextRecognizer.joinAcrossTiles(fragments);
+        assertEquals(1, lines.size());
+        assertEquals(line, lines.get(0).text);
+    }
+
+    @Test
+    public void wordInsideOverlap_isNotDuplicated() {
+        // "FLOUR," lies entirely in the overlap, so both tiles read it whole
+        String line = "WHEAT FLOUR, PEANUT";
+        int x = 1120 - 6 * CHAR_WIDTH;
+        List<TiledTextRecognizer.Piece> fragments = new ArrayList<>();
+        addOwned(fragments, line, x, 100, 0, TILE_0_END, 0, 0, SPLIT);
+        addOwned(fragments, line, x, 100, TILE_1_START, 2400, 1, SPLIT, 2400);
+
+        List<TiledTextRecognizer.Piece> lines = TiledTextRecognizer.joinAcrossTiles(fragments);
+        assertEquals(1, lines.size());
+        assertEquals(line, lines.get(0).text);
+    }
+
+    @Test
+    public void wholeLineInOneCore_keepsRecognizerText() {
+        List<TiledTextRecognizer.Piece> elements = Arrays.asList(
+                new TiledTextRecognizer.Piece("配料：", 10, 10, 70, 34, 0),
+                new TiledTextRecognizer.Piece("花生油", 80, 10, 140, 34, 0));
+        TiledTextRecognizer.Piece owned = TiledTextRecognizer.ownedPart("配料：花生油", elements, 0, 0, SPLIT, SPLIT);
+        assertNotNull(owned);
+        assertEquals("配料：花生油", owned.text);
+        assertNull(TiledTextRecognizer.ownedPart("配料：花生油", elements, SPLIT, 0, 2400, SPLIT));
+    }
+
+    @Test
+    public void linesOfOneTile_areNotJoined() {
+        // Two columns read as separate lines by the same tile stay separate
+        List<TiledTextRecognizer.Piece> fragments = Arrays.asList(
+                new TiledTextRecognizer.Piece("SALT", 100, 100, 180, 124, 0),
+                new TiledTextRecognizer.Piece("0.5 g", 200, 100, 300, 124, 0));
+        assertEquals(2, TiledTextRecognizer.joinAcrossTiles(fragments).size());
+    }
+
+    // Simulates what one tile reads of `line` drawn at (x, y): words cut by the tile edge are
+    // read only in part, and only the elements owned by the tile's core are kept
+    private static void addOwned(List<TiledTextRecognizer.Piece> fragments, String line, int x, int y,
+                                 int tileLeft, int tileRight, int tile, int coreLeft, int coreRight) {
+        List<TiledTextRecognizer.Piece> elements = new ArrayList<>();
+        StringBuilder seen = new StringBuilder();
+        int wordStart = 0;
+        for (String word : line.split(" ")) {
+            int visibleStart = -1;
+            int visibleEnd = -1;
+            for (int i = 0; i < word.length(); i++) {
+                int left = x + (wordStart + i) * CHAR_WIDTH;
+                if (left >= tileLeft && left + CHAR_WIDTH <= tileRight) {
+                    if (visibleStart < 0) visibleStart = i;
+                    visibleEnd = i + 1;
+                }
+            }
+            if (visibleStart >= 0) {
+                String text = word.substring(visibleStart, visibleEnd);
+                elements.add(new TiledTextRecognizer.Piece(text, x + (wordStart + visibleStart) * CHAR_WIDTH, y,
+                        x + (wordStart + visibleEnd) * CHAR_WIDTH, y + LINE_HEIGHT, tile));
+                if (seen.length() > 0) seen.append(' ');
+                seen.append(text);
+            }
+            wordStart += word.length() + 1;
+        }
+        TiledTextRecognizer.Piece owned = TiledTextRecognizer.ownedPart(seen.toString(), elements,
+                coreLeft, 0, coreRight, 2400);
+        if (owned != null) {
+            fragments.add(owned);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.mycamera2.build;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compiles the tab-separated allergen lexicon ({@code term<TAB>allergen} per line, '#' comments)
+ * into the binary format read by {@code AllergenLexicon} at runtime. All integers are big-endian:
+ *
+ * <pre>
+ * header      magic "ALEX", version, allergenCount, allergenTableOffset,
+ *             termCount, termTableOffset, trieRootOffset
+ * allergens   allergenCount x (stringOffset, stringLength), sorted by name
+ * terms       termCount x (stringOffset, stringLength, allergenId), sorted by UTF-8 bytes
+ * strings     UTF-8 string data
+ * trie        nodes of: u16 childCount, i32 termIndex (-1 if none),
+ *             childCount x (u8 label, i32 childOffset) sorted by label
+ * </pre>
+ *
+ * Every allergen name is also added as a term of itself.
+ */
+public final class LexiconCompiler {
+
+    public static final int MAGIC = 0x414C4558; // "ALEX"
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 7 * 4;
+
+    private LexiconCompiler() {
+    }
+
+    public static void compile(File source, File output) throws IOException {
+        Map<String, String> termToAllergen = new TreeMap<>();
+        TreeSet<String> allergens = new TreeSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(source.toPath()), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\t");
+                if (parts.length != 2 || parts[0].trim().isEmpty() || parts[1].trim().isEmpty()) {
+                    throw new IOException(source.getName() + ":" + lineNumber + ": expected 'term<TAB>allergen'");
+                }
+                String term = normalize(parts[0]);
+                String allergen = normalize(parts[1]);
+                String previous = termToAllergen.put(term, allergen);
+                if (previous != null && !previous.equals(allergen)) {
+                    throw new IOException(source.getName() + ":" + lineNumber + ": '" + term
+                            + "' maps to both " + previous + " and " + allergen);
+                }
+                allergens.add(allergen);
+            }
+        }
+        for (String allergen : allergens) {
+            termToAllergen.putIfAbsent(allergen, allergen);
+        }
+
+        List<String> allergenList = new ArrayList<>(allergens);
+        // Terms sorted by their UTF-8 bytes so the table order matches trie traversal order
+        List<byte[]> termBytes = new ArrayList<>();
+        for (String term : termToAllergen.keySet()) {
+            termBytes.add(term.getBytes(StandardCharsets.UTF_8));
+        }
+        termBytes.sort(LexiconCompiler::compareUnsigned);
+
+        int allergenTableOffset = HEADER_SIZE;
+        int termTableOffset = allergenTableOffset + allergenList.size() * 8;
+        int stringsOffset = termTableOffset + termBytes.size() * 12;
+
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        int[] allergenStringOffsets = new int[allergenList.size()];
+        int[] allergenStringLengths = new int[allergenList.size()];
+        for (int i = 0; i < allergenList.size(); i++) {
+            byte[] bytes = allergenList.get(i).getBytes(StandardCharsets.UTF_8);
+            allergenStringOffsets[i] = stringsOffset + strings.size();
+            allergenStringLengths[i] = bytes.length;
+            strings.write(bytes);
+        }
+        int[] termStringOffsets = new int[termBytes.size()];
+        Node root = new Node();
+        for (int i = 0; i < termBytes.size(); i++) {
+            byte[] bytes = termBytes.get(i);
+            termStringOffsets[i] = stringsOffset + strings.size();
+            strings.write(bytes);
+            Node node = root;
+            for (byte b : bytes) {
+                node = node.children.computeIfAbsent(b & 0xFF, k -> new Node());
+            }
+            node.termIndex = i;
+        }
+
+        int trieOffset = stringsOffset + strings.size();
+        List<Node> order = new ArrayList<>();
+        int end = assignOffsets(root, trieOffset, order);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(end);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(allergenList.size());
+        out.writeInt(allergenTableOffset);
+        out.writeInt(termBytes.size());
+        out.writeInt(termTableOffset);
+        out.writeInt(root.offset);
+        for (int i = 0; i < allergenList.size(); i++) {
+            out.writeInt(allergenStringOffsets[i]);
+            out.writeInt(allergenStringLengths[i]);
+        }
+        for (int i = 0; i < termBytes.size(); i++) {
+            String term = new String(termBytes.get(i), StandardCharsets.UTF_8);
+            out.writeInt(termStringOffsets[i]);
+            out.writeInt(termBytes.get(i).length);
+            out.writeInt(allergenList.indexOf(termToAllergen.get(term)));
+        }
+        strings.writeTo(out);
+        for (Node node : order) {
+            out.writeShort(node.children.size());
+            out.writeInt(node.termIndex);
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                out.writeByte(child.getKey());
+                out.writeInt(child.getValue().offset);
+            }
+        }
+        out.flush();
+
+        File parent = output.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        try (OutputStream file = new FileOutputStream(output)) {
+            buffer.writeTo(file);
+        }
+    }
+
+    // Pre-order layout; returns the offset just past the last node
+    private static int assignOffsets(Node node, int offset, List<Node> order) {
+        node.offset = offset;
+        order.add(node);
+        int next = offset + 2 + 4 + node.children.size() * 5;
+        for (Node child : node.children.values()) {
+            next = assignOffsets(child, next, order);
+        }
+        return next;
+    }
+
+    // Folds case one code point at a time, exactly like the runtime reader, so both agree on
+    // every term regardless of locale (String.toLowerCase can change the length, e.g. for "İ")
+    private static String normalize(String value) {
+        String collapsed = value.trim().replaceAll("\\s+", " ");
+        StringBuilder folded = new StringBuilder(collapsed.length());
+        for (int i = 0; i < collapsed.length(); ) {
+            int codePoint = collapsed.codePointAt(i);
+            folded.appendCodePoint(Character.toLowerCase(codePoint));
+            i += Character.charCount(codePoint);
+        }
+        return folded.toString();
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return a.length - b.length;
+    }
+
+    private static final class Node {
+        final TreeMap<Integer, Node> children = new TreeMap<>();
+        int termIndex = -1;
+        int offset;
+    }
+}